@@ -0,0 +1,228 @@
+package com.shortener;
+
+import java.nio.charset.StandardCharsets;
+
+// Lee de un evento de API Gateway (payload 2.0) solo requestContext.http.method y
+// pathParameters.code. El resto del documento se salta sin crear objetos: headers, cookies y
+// requestContext no se materializan. Se detiene en cuanto tiene los dos campos.
+final class ApiGatewayEventScanner {
+
+    private static final byte[] REQUEST_CONTEXT = ascii("requestContext");
+    private static final byte[] HTTP = ascii("http");
+    private static final byte[] METHOD = ascii("method");
+    private static final byte[] PATH_PARAMETERS = ascii("pathParameters");
+    private static final byte[] CODE = ascii("code");
+
+    private final byte[] json;
+    private int pos;
+    private String method;
+    private String code;
+
+    private ApiGatewayEventScanner(byte[] json) {
+        this.json = json;
+    }
+
+    record Fields(String method, String code) {
+    }
+
+    static Fields scan(byte[] json) {
+        ApiGatewayEventScanner scanner = new ApiGatewayEventScanner(json);
+        scanner.scanRoot();
+        return new Fields(scanner.method, scanner.code);
+    }
+
+    private void scanRoot() {
+        expect('{');
+        if (peek() == '}') {
+            return;
+        }
+        do {
+            peek();
+            int keyStart = pos + 1;
+            int keyEnd = skipString();
+            expect(':');
+            if (keyEquals(keyStart, keyEnd, REQUEST_CONTEXT) && peek() == '{') {
+                scanObject(HTTP, true);
+            } else if (keyEquals(keyStart, keyEnd, PATH_PARAMETERS) && peek() == '{') {
+                scanObject(CODE, false);
+            } else {
+                skipValue();
+            }
+            if (method != null && code != null) {
+                return;
+            }
+        } while (next(','));
+        expect('}');
+    }
+
+    // Recorre requestContext (buscando el objeto http) o http/pathParameters (buscando el string)
+    private void scanObject(byte[] wanted, boolean nested) {
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        do {
+            peek();
+            int keyStart = pos + 1;
+            int keyEnd = skipString();
+            expect(':');
+            if (!keyEquals(keyStart, keyEnd, wanted)) {
+                skipValue();
+            } else if (nested && peek() == '{') {
+                scanObject(METHOD, false);
+            } else if (!nested && peek() == '"') {
+                String value = readString();
+                if (wanted == METHOD) {
+                    method = value;
+                } else {
+                    code = value;
+                }
+            } else {
+                skipValue();
+            }
+        } while (next(','));
+        expect('}');
+    }
+
+    private void skipValue() {
+        byte c = peek();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            skipContainer();
+        } else {
+            // numero, true, false o null
+            while (pos < json.length) {
+                c = json[pos];
+                if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                    break;
+                }
+                pos++;
+            }
+        }
+    }
+
+    private void skipContainer() {
+        int depth = 0;
+        while (pos < json.length) {
+            byte c = json[pos];
+            if (c == '"') {
+                skipString();
+                continue;
+            }
+            pos++;
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return;
+            }
+        }
+        throw error("Unterminated object or array");
+    }
+
+    // Deja pos despues de la comilla de cierre y devuelve la posicion de esa comilla
+    private int skipString() {
+        expect('"');
+        while (pos < json.length) {
+            byte c = json[pos++];
+            if (c == '\\') {
+                pos++;
+            } else if (c == '"') {
+                return pos - 1;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private String readString() {
+        int start = pos + 1;
+        int end = skipString();
+        boolean escaped = false;
+        for (int i = start; i < end; i++) {
+            if (json[i] == '\\') {
+                escaped = true;
+                break;
+            }
+        }
+        if (!escaped) {
+            return new String(json, start, end - start, StandardCharsets.UTF_8);
+        }
+        return unescape(start, end);
+    }
+
+    private String unescape(int start, int end) {
+        String raw = new String(json, start, end - start, StandardCharsets.UTF_8);
+        StringBuilder out = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            char e = raw.charAt(++i);
+            switch (e) {
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case 'u' -> {
+                    out.append((char) Integer.parseInt(raw, i + 1, i + 5, 16));
+                    i += 4;
+                }
+                default -> out.append(e);
+            }
+        }
+        return out.toString();
+    }
+
+    private boolean keyEquals(int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (json[start + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean next(char c) {
+        if (peek() == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private byte peek() {
+        while (pos < json.length && isWhitespace(json[pos])) {
+            pos++;
+        }
+        if (pos >= json.length) {
+            throw error("Unexpected end of event");
+        }
+        return json[pos];
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos + " of API Gateway event");
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,156 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Misma logica que DynamoDbVisitRecorder pero sin bloquear el hilo del request: el handler
+// arma la respuesta mientras los contadores se persisten.
+public class AsyncVisitRecorder {
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final DynamoDbVisitRecorder requests;
+    private final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean retryingPendingAdds = new AtomicBoolean();
+
+    public AsyncVisitRecorder(DynamoDbAsyncClient dynamoDbAsyncClient, DynamoDbVisitRecorder requests) {
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+        this.requests = requests;
+    }
+
+    public CompletableFuture<Void> recordVisit(String code) {
+        CompletableFuture<Void> visit = record(code, requests.currentBucket(), 1);
+        pending.add(visit);
+        visit.whenComplete((result, error) -> pending.remove(visit));
+        return visit;
+    }
+
+    // Para el cierre ordenado del proceso: espera las visitas en vuelo como maximo timeoutMillis
+    public void awaitPending(long timeoutMillis) {
+        CompletableFuture<?>[] visits = pending.toArray(new CompletableFuture<?>[0]);
+        try {
+            CompletableFuture.allOf(visits).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Log.warn("Gave up waiting for " + pending.size() + " pending visits", null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Cada visita ya reporto su error en el request que la origino
+        }
+    }
+
+    // Todo corre sobre los futures del cliente asincrono, sin hilos del commonPool. La compactacion
+    // del histograma solo se encola al terminar y no forma parte del future que espera el request.
+    // Con serie de tiempo el future solo falla si falla totalVisits, como en DynamoDbVisitRecorder:
+    // la migracion y cada granularidad son pasos independientes que no cortan a los demas.
+    public CompletableFuture<Void> record(String code, String bucket, long count) {
+        String counterKey = requests.counterKey(code, count);
+
+        VisitTimeSeriesWriter timeSeries = requests.timeSeriesWriter();
+        if (timeSeries != null) {
+            retryPendingAdds(timeSeries);
+            return dynamoDbAsyncClient.updateItem(requests.buildTotalRequest(counterKey, count))
+                    .thenCompose(response -> {
+                        List<CompletableFuture<Void>> steps = new ArrayList<>();
+                        Map<String, AttributeValue> legacyVisitsByDate = DynamoDbVisitRecorder.legacyVisitsByDate(response);
+                        if (legacyVisitsByDate != null) {
+                            steps.add(migrate(timeSeries, counterKey, legacyVisitsByDate));
+                        }
+                        for (VisitGranularity granularity : requests.granularities()) {
+                            steps.add(add(timeSeries, new DynamoDbVisitRecorder.PendingAdd(counterKey, granularity, bucket, count)));
+                        }
+                        return CompletableFuture.allOf(steps.toArray(CompletableFuture[]::new));
+                    });
+        }
+
+        UpdateItemRequest incrementRequest = requests.buildIncrementRequest(counterKey, bucket, count);
+
+        CompletableFuture<Void> visit = dynamoDbAsyncClient.updateItem(incrementRequest)
+                .thenApply(response -> (Void) null)
+                .exceptionallyCompose(e -> {
+                    if (!(unwrap(e) instanceof ConditionalCheckFailedException)) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    return dynamoDbAsyncClient.updateItem(requests.buildCreateMapsRequest(counterKey))
+                            .thenCompose(created -> dynamoDbAsyncClient.updateItem(incrementRequest))
+                            .thenApply(response -> (Void) null);
+                });
+        visit.thenRun(() -> requests.compactIfNeeded(counterKey));
+        return visit;
+    }
+
+    // Un ADD que falla pasa a la cola de pasos pendientes de DynamoDbVisitRecorder; el future no falla
+    private CompletableFuture<Void> add(VisitTimeSeriesWriter timeSeries, DynamoDbVisitRecorder.PendingAdd step) {
+        return dynamoDbAsyncClient.updateItem(step.buildRequest(timeSeries))
+                .handle((response, error) -> {
+                    if (error != null) {
+                        requests.defer(step, unwrap(error));
+                    }
+                    return null;
+                });
+    }
+
+    // Reintenta los pasos pendientes de a uno, cortando en el primer fallo como
+    // DynamoDbVisitRecorder.retryPendingAdds; solo corre una cadena de reintentos a la vez
+    private void retryPendingAdds(VisitTimeSeriesWriter timeSeries) {
+        int remaining = requests.pendingAddCount();
+        if (remaining > 0 && retryingPendingAdds.compareAndSet(false, true)) {
+            retryNextPendingAdd(timeSeries, remaining);
+        }
+    }
+
+    private void retryNextPendingAdd(VisitTimeSeriesWriter timeSeries, int remaining) {
+        DynamoDbVisitRecorder.PendingAdd step = remaining > 0 ? requests.pollPendingAdd() : null;
+        if (step == null) {
+            retryingPendingAdds.set(false);
+            return;
+        }
+        dynamoDbAsyncClient.updateItem(step.buildRequest(timeSeries))
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        requests.defer(step, unwrap(error));
+                        retryingPendingAdds.set(false);
+                    } else {
+                        retryNextPendingAdd(timeSeries, remaining - 1);
+                    }
+                });
+    }
+
+    // Misma migracion que DynamoDbVisitRecorder.migrateLegacyVisits: primero la copia idempotente
+    // de cada dia y despues el REMOVE condicionado. Si algo falla el mapa sigue en el item y la
+    // proxima visita la repite; el future no falla.
+    private CompletableFuture<Void> migrate(VisitTimeSeriesWriter timeSeries, String counterKey,
+                                            Map<String, AttributeValue> legacyVisitsByDate) {
+        return CompletableFuture.allOf(legacyVisitsByDate.entrySet().stream()
+                        .map(day -> dynamoDbAsyncClient.updateItem(timeSeries.buildMigrateRequest(counterKey,
+                                        day.getKey(), Long.parseLong(day.getValue().n())))
+                                .exceptionallyCompose(e -> unwrap(e) instanceof ConditionalCheckFailedException
+                                        ? CompletableFuture.completedFuture(null) : CompletableFuture.failedFuture(e)))
+                        .toArray(CompletableFuture[]::new))
+                .thenCompose(copied -> dynamoDbAsyncClient.updateItem(
+                        requests.buildRemoveLegacyRequest(counterKey, legacyVisitsByDate)))
+                .handle((removed, error) -> {
+                    if (error != null) {
+                        DynamoDbVisitRecorder.logMigrationFailure(counterKey, unwrap(error));
+                    }
+                    return null;
+                });
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
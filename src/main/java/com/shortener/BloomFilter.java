@@ -0,0 +1,87 @@
+package com.shortener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        checkFalsePositiveRate(falsePositiveRate);
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, m);
+        this.bits = new long[(int) ((m + 63) >>> 6)];
+        this.numBits = (long) bits.length << 6;
+        this.numHashes = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    public static BloomFilter fromSnapshot(Path path, double falsePositiveRate) throws IOException {
+        // Antes de leer el snapshot, que puede ser grande
+        checkFalsePositiveRate(falsePositiveRate);
+        List<String> codes = new ArrayList<>();
+        CodeSnapshot.read(path, (code, url) -> codes.add(code));
+
+        BloomFilter filter = new BloomFilter(codes.size(), falsePositiveRate);
+        for (String code : codes) {
+            filter.put(code);
+        }
+        return filter;
+    }
+
+    // Con 0 o menos el numero de bits es infinito o negativo y con 1 o mas el filtro queda sin bits
+    // utiles; NaN tampoco pasa la comparacion
+    private static void checkFalsePositiveRate(double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Bloom filter false positive rate must be between 0 and 1 (exclusive): "
+                    + falsePositiveRate);
+        }
+    }
+
+    public void put(String code) {
+        long hash = hash(code);
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(h1 + i * h2, numBits);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    public boolean mightContain(String code) {
+        long hash = hash(code);
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < numHashes; i++) {
+            long index = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a de 64 bits sobre los chars del codigo, seguido de un mezclado final
+    static long hash(String code) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < code.length(); i++) {
+            h ^= code.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,117 @@
+package com.shortener;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Entrenamiento del archivo AppCDS (./gradlew buildCdsArchive). El handler corre dentro de la
+// imagen public.ecr.aws/lambda/java:17, con el runtime java17 real: el classpath de /var/runtime y
+// el class loader de /var/task/lib son los de produccion. Un archivo volcado con otro classpath la
+// JVM lo descarta sin error con -Xshare:auto. Este programa corre fuera del contenedor: levanta un
+// DynamoDB de mentira en dynamoDbPort y manda las invocaciones al emulador de la Runtime API de la
+// imagen; la JVM del runtime vuelca las clases al salir (-XX:ArchiveClassesAtExit).
+//   java -cp redirect-handler-all.jar com.shortener.CdsTraining <invocationsUrl> <dynamoDbPort> [iteraciones]
+public final class CdsTraining {
+
+    private static final int DEFAULT_ITERATIONS = 500;
+    private static final String MISSING_PREFIX = "missing-";
+    private static final long STARTUP_TIMEOUT_MILLIS = 60_000;
+
+    private CdsTraining() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI invocations = URI.create(args[0]);
+        int dynamoDbPort = Integer.parseInt(args[1]);
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ITERATIONS;
+
+        HttpServer dynamoDb = HttpServer.create(new InetSocketAddress(dynamoDbPort), 0);
+        dynamoDb.createContext("/", CdsTraining::handleDynamoDbRequest);
+        dynamoDb.start();
+
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            awaitRuntime(client, invocations);
+            for (int i = 0; i < iterations; i++) {
+                String code = "cds" + i;
+                // miss + GetItem + visita, luego acierto de cache, HEAD, 404, preflight, 405 y 400
+                invoke(client, invocations, event("GET", code));
+                invoke(client, invocations, event("GET", code));
+                invoke(client, invocations, event("HEAD", code));
+                invoke(client, invocations, event("GET", MISSING_PREFIX + i));
+                invoke(client, invocations, event("OPTIONS", code));
+                invoke(client, invocations, event("POST", code));
+                invoke(client, invocations, event("GET", null));
+            }
+            Log.info("Trained redirect handler with " + iterations * 7 + " invocations");
+        } finally {
+            dynamoDb.stop(0);
+        }
+    }
+
+    // El emulador acepta conexiones antes de que el runtime termine de arrancar; se reintenta la
+    // primera invocacion hasta que responde
+    private static void awaitRuntime(HttpClient client, URI invocations) throws Exception {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                invoke(client, invocations, event("GET", "cds-warmup"));
+                return;
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(500);
+            }
+        }
+    }
+
+    private static void invoke(HttpClient client, URI invocations, String event) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(invocations)
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(event))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        // Un handler que lanza una excepcion responde 200 con errorMessage
+        if (response.statusCode() != 200 || response.body().contains("\"errorMessage\"")) {
+            throw new IllegalStateException("Training invocation failed: " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    private static String event(String method, String code) {
+        String path = code == null ? "/" : "/" + code;
+        return "{\"version\":\"2.0\",\"rawPath\":\"" + path + "\",\"headers\":{\"user-agent\":\"cds-training\"},"
+                + "\"requestContext\":{\"requestId\":\"cds\",\"http\":{\"method\":\"" + method + "\",\"path\":\"" + path + "\"}},"
+                + (code == null ? "" : "\"pathParameters\":{\"code\":\"" + code + "\"},")
+                + "\"isBase64Encoded\":false}";
+    }
+
+    // Protocolo JSON 1.0 de DynamoDB: la operacion viaja en X-Amz-Target. GetItem responde con una
+    // URL salvo para los codigos MISSING_PREFIX; UpdateItem responde sin atributos.
+    private static void handleDynamoDbRequest(HttpExchange exchange) throws IOException {
+        String target = exchange.getRequestHeaders().getFirst("X-Amz-Target");
+        String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+        String response = "{}";
+        if (target != null && target.endsWith(".GetItem") && !request.contains(MISSING_PREFIX)) {
+            response = "{\"Item\":{\"originalUrl\":{\"S\":\"https://example.com/cds-training\"}}}";
+        }
+
+        byte[] body = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/x-amz-json-1.0");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.shortener;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+// Formato de snapshot de la tabla: una linea por codigo, "code", "code<TAB>originalUrl" o
+// "code<TAB>originalUrl<TAB>redirectType<TAB>cacheMaxAge<TAB>cacheScope" (ver RedirectPolicy).
+// Sin las columnas de politica la redireccion usa RedirectPolicy.DEFAULT.
+// Si el archivo termina en .gz se lee comprimido.
+public final class CodeSnapshot {
+
+    private CodeSnapshot() {
+    }
+
+    // Solo codigo y URL, para quien no necesita la politica (filtro Bloom)
+    public static void read(Path path, BiConsumer<String, String> consumer) throws IOException {
+        lines(path, line -> {
+            int tab = line.indexOf('\t');
+            if (tab < 0) {
+                consumer.accept(line, null);
+            } else {
+                int end = line.indexOf('\t', tab + 1);
+                consumer.accept(line.substring(0, tab), line.substring(tab + 1, end < 0 ? line.length() : end));
+            }
+        });
+    }
+
+    // El target es null en las lineas que solo tienen el codigo
+    public static void readTargets(Path path, BiConsumer<String, RedirectTarget> consumer) throws IOException {
+        lines(path, line -> {
+            String[] columns = line.split("\t", -1);
+            if (columns.length < 2) {
+                consumer.accept(line, null);
+            } else if (columns.length < 5) {
+                consumer.accept(columns[0], new RedirectTarget(columns[1]));
+            } else {
+                RedirectPolicy policy = RedirectPolicy.of(columns[2], columns[3], columns[4]);
+                consumer.accept(columns[0], new RedirectTarget(columns[1], policy));
+            }
+        });
+    }
+
+    // Las columnas de politica solo se escriben si no es la de por defecto
+    public static void write(Writer writer, String code, RedirectTarget target) throws IOException {
+        writer.write(code);
+        writer.write('\t');
+        writer.write(target.originalUrl());
+        RedirectPolicy policy = target.policy();
+        if (!RedirectPolicy.DEFAULT.equals(policy)) {
+            writer.write('\t');
+            writer.write(policy.redirectType());
+            writer.write('\t');
+            writer.write(Long.toString(policy.maxAgeSeconds()));
+            writer.write('\t');
+            writer.write(policy.cacheScope());
+        }
+        writer.write('\n');
+    }
+
+    private static void lines(Path path, Consumer<String> consumer) throws IOException {
+        try (InputStream raw = Files.newInputStream(path);
+             InputStream in = path.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(raw, 64 * 1024) : raw;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    consumer.accept(line);
+                }
+            }
+        }
+    }
+}
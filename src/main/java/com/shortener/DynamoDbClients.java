@@ -0,0 +1,73 @@
+package com.shortener;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.ContainerCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+import java.net.URI;
+
+// Clientes configurados de forma explicita: DynamoDbClient.create() recorre la cadena completa
+// de regiones y credenciales y busca implementaciones HTTP en el classpath, todo en el arranque.
+public final class DynamoDbClients {
+
+    private DynamoDbClients() {
+    }
+
+    public static DynamoDbClient create() {
+        DynamoDbClientBuilder builder = DynamoDbClient.builder()
+                .httpClientBuilder(UrlConnectionHttpClient.builder())
+                .region(region())
+                .credentialsProvider(credentialsProvider());
+        URI endpoint = endpoint();
+        if (endpoint != null) {
+            builder.endpointOverride(endpoint);
+        }
+        return builder.build();
+    }
+
+    // Solo se usa con VISIT_MODE=async
+    public static DynamoDbAsyncClient createAsync() {
+        DynamoDbAsyncClientBuilder builder = DynamoDbAsyncClient.builder()
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder())
+                .region(region())
+                .credentialsProvider(credentialsProvider());
+        URI endpoint = endpoint();
+        if (endpoint != null) {
+            builder.endpointOverride(endpoint);
+        }
+        return builder.build();
+    }
+
+    private static Region region() {
+        String region = System.getenv("AWS_REGION");
+        return region == null || region.isBlank() ? Region.US_EAST_1 : Region.of(region);
+    }
+
+    // DynamoDB local o el stand-in de CdsTraining; en Lambda no se define
+    private static URI endpoint() {
+        String endpoint = System.getenv("DYNAMODB_ENDPOINT");
+        return endpoint == null || endpoint.isBlank() ? null : URI.create(endpoint);
+    }
+
+    // Lambda entrega las credenciales en variables de entorno, salvo con SnapStart, donde no
+    // existen y se obtienen del endpoint de credenciales del contenedor. Fuera de Lambda
+    // (RedirectServer y NioRedirectServer en ECS o EKS, TableExporter) se usa la cadena por
+    // defecto: ECS define AWS_CONTAINER_CREDENTIALS_RELATIVE_URI y EKS un token de web identity.
+    private static AwsCredentialsProvider credentialsProvider() {
+        if (System.getenv("AWS_LAMBDA_FUNCTION_NAME") == null) {
+            return DefaultCredentialsProvider.create();
+        }
+        if (System.getenv("AWS_CONTAINER_CREDENTIALS_FULL_URI") != null) {
+            return ContainerCredentialsProvider.builder().build();
+        }
+        return EnvironmentVariableCredentialsProvider.create();
+    }
+}
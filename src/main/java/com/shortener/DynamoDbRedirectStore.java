@@ -0,0 +1,44 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.Map;
+
+// Un GetItem por codigo con solo los atributos de la redireccion (URL y RedirectPolicy)
+public class DynamoDbRedirectStore implements RedirectStore {
+
+    private static final String PROJECTION = String.join(", ", "originalUrl",
+            RedirectPolicy.TYPE_ATTRIBUTE, RedirectPolicy.MAX_AGE_ATTRIBUTE, RedirectPolicy.SCOPE_ATTRIBUTE);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    public DynamoDbRedirectStore(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public RedirectTarget find(String code) {
+        GetItemRequest getItemRequest = GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("code", AttributeValue.builder().s(code).build()))
+                .projectionExpression(PROJECTION)
+                .build();
+
+        GetItemResponse result = dynamoDbClient.getItem(getItemRequest);
+
+        if (result.item() == null || !result.item().containsKey("originalUrl")) {
+            return null;
+        }
+        return new RedirectTarget(result.item().get("originalUrl").s(), RedirectPolicy.fromItem(result.item()));
+    }
+
+    @Override
+    public void close() {
+        dynamoDbClient.close();
+    }
+}
@@ -0,0 +1,313 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Visitas en DynamoDB: totalVisits y las cubetas por granularidad en el item del codigo (o en la
+// tabla de series de tiempo), con shards para los codigos calientes y compactacion opcional.
+public class DynamoDbVisitRecorder implements VisitRecorder {
+
+    private static final AttributeValue ZERO = AttributeValue.builder().n("0").build();
+    private static final int MAX_PENDING_ADDS = 10000;
+    private static final AttributeValue EMPTY_MAP = AttributeValue.builder().m(Map.of()).build();
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final ZoneId timeZone;
+    private final List<VisitGranularity> granularities;
+    private final int shardCount;
+    private final HotCodeDetector hotCodeDetector;
+    private final VisitTimeSeriesWriter timeSeriesWriter;
+    private final VisitHistogramCompactor histogramCompactor;
+    private final Queue<PendingAdd> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingAddCount = new AtomicInteger();
+
+    public DynamoDbVisitRecorder(DynamoDbClient dynamoDbClient, String tableName, ZoneId timeZone) {
+        this(dynamoDbClient, tableName, timeZone, List.of(VisitGranularity.DAY), 1, null, null, null);
+    }
+
+    public DynamoDbVisitRecorder(DynamoDbClient dynamoDbClient, String tableName, ZoneId timeZone,
+                         List<VisitGranularity> granularities,
+                         int shardCount, HotCodeDetector hotCodeDetector,
+                         VisitTimeSeriesWriter timeSeriesWriter,
+                         VisitHistogramCompactor histogramCompactor) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.timeZone = timeZone;
+        // Un mapa por minuto u hora en el item de redireccion crece sin limite: esas
+        // granularidades solo se permiten con la tabla de series de tiempo
+        List<VisitGranularity> allowed = timeSeriesWriter != null ? granularities : granularities.stream()
+                .filter(granularity -> granularity.compareTo(VisitGranularity.DAY) >= 0)
+                .toList();
+        if (allowed.size() < granularities.size()) {
+            List<VisitGranularity> dropped = granularities.stream()
+                    .filter(granularity -> !allowed.contains(granularity))
+                    .toList();
+            Log.warn("Ignoring visit granularities " + dropped
+                    + " because they need the time series table (VISITS_TABLE_NAME)", null);
+        }
+        this.granularities = allowed.isEmpty() ? List.of(VisitGranularity.DAY) : allowed;
+        this.shardCount = shardCount;
+        this.hotCodeDetector = shardCount > 1 ? hotCodeDetector : null;
+        this.timeSeriesWriter = timeSeriesWriter;
+        // Con la serie de tiempo visitsByDate ya no vive en el item, no hay nada que compactar
+        this.histogramCompactor = timeSeriesWriter == null ? histogramCompactor : null;
+    }
+
+    public static String shardKey(String code, int shard) {
+        return code + "#" + shard;
+    }
+
+    public String today() {
+        return VisitGranularity.DAY.format(ZonedDateTime.now(timeZone));
+    }
+
+    // Cubeta de la granularidad mas fina configurada; el resto se deriva de ella
+    @Override
+    public String currentBucket() {
+        return granularities.get(0).format(ZonedDateTime.now(timeZone));
+    }
+
+
+    // Sin serie de tiempo, totalVisits y la cubeta de cada granularidad van en un solo UpdateItem;
+    // si algun mapa aun no existe la condicion falla: se crean los mapas vacios y se reintenta.
+    // Con serie de tiempo son varias escrituras: si falla la de totalVisits no se escribio nada y
+    // la excepcion deja que el VisitBuffer reintente la visita completa; si falla el ADD de una
+    // granularidad, ese paso queda pendiente y se reintenta solo, sin volver a sumar lo que ya se
+    // escribio. La migracion de visitsByDate no depende de esa cola (ver migrateLegacyVisits).
+    @Override
+    public void record(String code, String bucket, long count) {
+        String counterKey = counterKey(code, count);
+
+        if (timeSeriesWriter != null) {
+            retryPendingAdds();
+            UpdateItemResponse response = dynamoDbClient.updateItem(buildTotalRequest(counterKey, count));
+
+            Map<String, AttributeValue> legacyVisitsByDate = legacyVisitsByDate(response);
+            if (legacyVisitsByDate != null) {
+                migrateLegacyVisits(counterKey, legacyVisitsByDate);
+            }
+            for (VisitGranularity granularity : granularities) {
+                PendingAdd step = new PendingAdd(counterKey, granularity, bucket, count);
+                try {
+                    timeSeriesWriter.add(step.counterKey(), step.granularity(), step.bucket(), step.count());
+                } catch (RuntimeException e) {
+                    defer(step, e);
+                }
+            }
+            return;
+        }
+
+        UpdateItemRequest incrementRequest = buildIncrementRequest(counterKey, bucket, count);
+
+        try {
+            dynamoDbClient.updateItem(incrementRequest);
+        } catch (ConditionalCheckFailedException e) {
+            dynamoDbClient.updateItem(buildCreateMapsRequest(counterKey));
+            dynamoDbClient.updateItem(incrementRequest);
+        }
+
+        compactIfNeeded(counterKey);
+    }
+
+    // Los pasos pendientes se reintentan al inicio de la siguiente escritura; si DynamoDB sigue
+    // fallando se corta en el primero para no sumar latencia a cada visita
+    void retryPendingAdds() {
+        for (int remaining = pendingAddCount.get(); remaining > 0; remaining--) {
+            PendingAdd step = pendingAdds.poll();
+            if (step == null) {
+                return;
+            }
+            pendingAddCount.decrementAndGet();
+            try {
+                timeSeriesWriter.add(step.counterKey(), step.granularity(), step.bucket(), step.count());
+            } catch (RuntimeException e) {
+                defer(step, e);
+                return;
+            }
+        }
+    }
+
+    void defer(PendingAdd step, Throwable error) {
+        if (pendingAddCount.incrementAndGet() > MAX_PENDING_ADDS) {
+            pendingAddCount.decrementAndGet();
+            // Se deja en el log para recuperarlo a mano
+            Log.error("Dropping visit time series update " + step, error);
+            return;
+        }
+        pendingAdds.add(step);
+        Log.warn("Deferred visit time series update " + step, error);
+    }
+
+    int pendingAddCount() {
+        return pendingAddCount.get();
+    }
+
+    // Para AsyncVisitRecorder, que reintenta los pasos con el cliente asincrono
+    PendingAdd pollPendingAdd() {
+        PendingAdd step = pendingAdds.poll();
+        if (step != null) {
+            pendingAddCount.decrementAndGet();
+        }
+        return step;
+    }
+
+    // Los dias del visitsByDate heredado se copian a la serie de tiempo y solo despues se quita el
+    // mapa del item, con la condicion de que no haya cambiado. Si falla algun paso el mapa queda en
+    // el item y la siguiente visita del codigo repite la migracion, que es idempotente: no hace
+    // falta guardar nada en memoria para no perder el historial.
+    void migrateLegacyVisits(String counterKey, Map<String, AttributeValue> legacyVisitsByDate) {
+        try {
+            for (Map.Entry<String, AttributeValue> day : legacyVisitsByDate.entrySet()) {
+                timeSeriesWriter.migrate(counterKey, day.getKey(), Long.parseLong(day.getValue().n()));
+            }
+            dynamoDbClient.updateItem(buildRemoveLegacyRequest(counterKey, legacyVisitsByDate));
+        } catch (RuntimeException e) {
+            logMigrationFailure(counterKey, e);
+        }
+    }
+
+    static void logMigrationFailure(String counterKey, Throwable error) {
+        if (error instanceof ConditionalCheckFailedException) {
+            Log.info("visitsByDate of " + counterKey + " changed while migrating, retrying on the next visit");
+        } else {
+            Log.warn("Error migrating visitsByDate of " + counterKey + ", retrying on the next visit", error);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (histogramCompactor != null) {
+            histogramCompactor.close();
+        }
+        if (timeSeriesWriter == null) {
+            return;
+        }
+        retryPendingAdds();
+        if (!pendingAdds.isEmpty()) {
+            Log.error("Unwritten visit time series updates: " + pendingAdds, null);
+        }
+    }
+
+    // Encola la compactacion del item; no bloquea ni falla la escritura de la visita
+    void compactIfNeeded(String counterKey) {
+        if (histogramCompactor != null) {
+            histogramCompactor.schedule(counterKey, today());
+        }
+    }
+
+    // Los codigos calientes reparten sus contadores entre shardCount items "code#n" elegidos
+    // al azar en cada escritura; ShardedCounterReader los vuelve a sumar.
+    String counterKey(String code, long count) {
+        if (hotCodeDetector == null || !hotCodeDetector.observeWrite(code, count)) {
+            return code;
+        }
+        return shardKey(code, ThreadLocalRandom.current().nextInt(shardCount));
+    }
+
+    List<VisitGranularity> granularities() {
+        return granularities;
+    }
+
+    VisitTimeSeriesWriter timeSeriesWriter() {
+        return timeSeriesWriter;
+    }
+
+    // Con la serie de tiempo, el item de redireccion solo guarda totalVisits. ALL_OLD devuelve el
+    // visitsByDate heredado, si todavia esta, sin una lectura aparte; no consume capacidad extra.
+    UpdateItemRequest buildTotalRequest(String counterKey, long count) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("code", AttributeValue.builder().s(counterKey).build()))
+                .updateExpression("SET totalVisits = if_not_exists(totalVisits, :zero) + :inc")
+                .expressionAttributeValues(Map.of(
+                        ":inc", AttributeValue.builder().n(Long.toString(count)).build(),
+                        ":zero", ZERO
+                ))
+                .returnValues(ReturnValue.ALL_OLD)
+                .build();
+    }
+
+    // Falla con ConditionalCheckFailedException si otro escritor cambio el mapa despues de copiarlo
+    UpdateItemRequest buildRemoveLegacyRequest(String counterKey, Map<String, AttributeValue> legacyVisitsByDate) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("code", AttributeValue.builder().s(counterKey).build()))
+                .updateExpression("REMOVE visitsByDate")
+                .conditionExpression("visitsByDate = :copied")
+                .expressionAttributeValues(Map.of(":copied", AttributeValue.builder().m(legacyVisitsByDate).build()))
+                .build();
+    }
+
+    static Map<String, AttributeValue> legacyVisitsByDate(UpdateItemResponse response) {
+        if (!response.hasAttributes() || !response.attributes().containsKey("visitsByDate")) {
+            return null;
+        }
+        return response.attributes().get("visitsByDate").m();
+    }
+
+    UpdateItemRequest buildIncrementRequest(String counterKey, String bucket, long count) {
+        StringJoiner update = new StringJoiner(", ", "SET totalVisits = if_not_exists(totalVisits, :zero) + :inc, ", "");
+        StringJoiner condition = new StringJoiner(" AND ");
+        Map<String, String> names = new HashMap<>();
+
+        for (int i = 0; i < granularities.size(); i++) {
+            VisitGranularity granularity = granularities.get(i);
+            String path = granularity.attributeName() + ".#b" + i;
+            update.add(path + " = if_not_exists(" + path + ", :zero) + :inc");
+            condition.add("attribute_exists(" + granularity.attributeName() + ")");
+            names.put("#b" + i, granularity.rollUp(bucket));
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("code", AttributeValue.builder().s(counterKey).build()))
+                .updateExpression(update.toString())
+                .conditionExpression(condition.toString())
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(Map.of(
+                        ":inc", AttributeValue.builder().n(Long.toString(count)).build(),
+                        ":zero", ZERO
+                ))
+                .build();
+    }
+
+    // Idempotente: no pisa los mapas que ya existen, asi que dos requests concurrentes no se estorban
+    UpdateItemRequest buildCreateMapsRequest(String counterKey) {
+        StringJoiner update = new StringJoiner(", ", "SET ", "");
+        for (VisitGranularity granularity : granularities) {
+            String attribute = granularity.attributeName();
+            update.add(attribute + " = if_not_exists(" + attribute + ", :empty)");
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("code", AttributeValue.builder().s(counterKey).build()))
+                .updateExpression(update.toString())
+                .expressionAttributeValues(Map.of(":empty", EMPTY_MAP))
+                .build();
+    }
+
+    // Un incremento de la serie de tiempo de una visita cuyo totalVisits ya se escribio
+    record PendingAdd(String counterKey, VisitGranularity granularity, String bucket, long count) {
+
+        UpdateItemRequest buildRequest(VisitTimeSeriesWriter timeSeriesWriter) {
+            return timeSeriesWriter.buildAddRequest(counterKey, granularity, bucket, count);
+        }
+    }
+}
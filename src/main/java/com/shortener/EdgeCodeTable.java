@@ -0,0 +1,148 @@
+package com.shortener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Tabla de codigos de solo lectura para replicas de borde, mapeada en memoria (ver
+// EdgeCodeTableWriter). Abrirla solo valida el encabezado: el costo no depende del tamano de la
+// tabla y las paginas se cargan a medida que se consultan. Un lookup es un sondeo lineal sobre los
+// slots (fingerprint + offset) y la lectura de la entrada; solo se crea el String de la URL.
+//
+// Formato (big endian):
+//   encabezado: magic "EDGT", version, slotCount (potencia de 2), entryCount
+//   slots:      slotCount x (int fingerprint, 0 = vacio; int offset de la entrada en el blob)
+//   blob:       entradas (u16 largo del codigo, codigo UTF-8, u8 flags, int maxAge, int largo URL, URL UTF-8)
+public final class EdgeCodeTable implements RedirectStore {
+
+    static final int MAGIC = 0x45444754;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int SLOT_BYTES = 8;
+    static final int FLAG_PERMANENT = 1;
+    static final int FLAG_SHARED = 2;
+
+    private final Path path;
+    private final ByteBuffer table;
+    private final int slotMask;
+    private final int entryCount;
+    private final int blobStart;
+
+    private EdgeCodeTable(Path path, ByteBuffer table, int slotCount, int entryCount) {
+        this.path = path;
+        this.table = table;
+        this.slotMask = slotCount - 1;
+        this.entryCount = entryCount;
+        this.blobStart = HEADER_BYTES + slotCount * SLOT_BYTES;
+    }
+
+    public static EdgeCodeTable open(Path path) throws IOException {
+        MappedByteBuffer table;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // El mapeo sigue valido despues de cerrar el canal
+            table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        table.order(ByteOrder.BIG_ENDIAN);
+
+        if (table.capacity() < HEADER_BYTES || table.getInt(0) != MAGIC) {
+            throw new IOException("Not an edge code table: " + path);
+        }
+        if (table.getInt(4) != VERSION) {
+            throw new IOException("Unsupported edge code table version " + table.getInt(4) + ": " + path);
+        }
+        int slotCount = table.getInt(8);
+        int entryCount = table.getInt(12);
+        if (slotCount <= 0 || Integer.bitCount(slotCount) != 1
+                || HEADER_BYTES + (long) slotCount * SLOT_BYTES > table.capacity()) {
+            throw new IOException("Corrupt edge code table header: " + path);
+        }
+        return new EdgeCodeTable(path, table, slotCount, entryCount);
+    }
+
+    @Override
+    public RedirectTarget find(String code) {
+        long hash = BloomFilter.hash(code);
+        int fingerprint = fingerprint(hash);
+        int slot = (int) hash & slotMask;
+        // Con factor de carga <= 0.75 siempre hay un slot vacio que corta el sondeo
+        for (int probes = 0; probes <= slotMask; probes++) {
+            int slotPosition = HEADER_BYTES + slot * SLOT_BYTES;
+            int slotFingerprint = table.getInt(slotPosition);
+            if (slotFingerprint == 0) {
+                return null;
+            }
+            if (slotFingerprint == fingerprint) {
+                int entry = blobStart + table.getInt(slotPosition + 4);
+                if (codeMatches(entry, code)) {
+                    return readTarget(entry);
+                }
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    // Los bits altos del hash, nunca 0; los bajos eligen el slot
+    static int fingerprint(long hash) {
+        int fingerprint = (int) (hash >>> 32);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    // Los codigos ASCII se comparan byte contra char, sin copiar la entrada
+    private boolean codeMatches(int entry, String code) {
+        int length = table.getShort(entry) & 0xFFFF;
+        int start = entry + 2;
+        for (int i = 0; i < code.length(); i++) {
+            if (code.charAt(i) >= 0x80) {
+                return bytesMatch(start, length, code.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        if (length != code.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (table.get(start + i) != code.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean bytesMatch(int start, int length, byte[] code) {
+        if (length != code.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (table.get(start + i) != code[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private RedirectTarget readTarget(int entry) {
+        int position = entry + 2 + (table.getShort(entry) & 0xFFFF);
+        int flags = table.get(position);
+        int maxAge = table.getInt(position + 1);
+        int urlLength = table.getInt(position + 5);
+        byte[] url = new byte[urlLength];
+        table.get(position + 9, url);
+
+        RedirectPolicy policy = flags == 0 && maxAge == 0 ? RedirectPolicy.DEFAULT :
+                new RedirectPolicy((flags & FLAG_PERMANENT) != 0, maxAge, (flags & FLAG_SHARED) != 0);
+        return new RedirectTarget(new String(url, StandardCharsets.UTF_8), policy);
+    }
+}
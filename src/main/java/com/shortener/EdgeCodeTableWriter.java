@@ -0,0 +1,182 @@
+package com.shortener;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Genera el archivo de EdgeCodeTable a partir de un snapshot de la tabla (formato CodeSnapshot):
+//   java -cp redirect-handler-all.jar com.shortener.EdgeCodeTableWriter codes.tsv.gz codes.edge
+// Las entradas se escriben en orden al blob y los slots se arman en memoria (8 bytes por slot) y se
+// escriben al final. El archivo se arma en un temporal y se mueve de forma atomica: una replica que
+// tenga mapeada la version anterior no ve un archivo a medio escribir.
+public final class EdgeCodeTableWriter implements AutoCloseable {
+
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private final Path output;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final DataOutputStream blob;
+    private final int[] slots;
+    private final int slotMask;
+    private final int capacity;
+    private final long blobStart;
+    private long blobSize;
+    private int entryCount;
+    private boolean finished;
+
+    public EdgeCodeTableWriter(Path output, int expectedEntries) throws IOException {
+        int slotCount = slotCount(expectedEntries);
+        this.output = output;
+        this.temporary = output.resolveSibling(output.getFileName() + ".tmp");
+        this.slots = new int[slotCount * 2];
+        this.slotMask = slotCount - 1;
+        this.capacity = (int) (slotCount * MAX_LOAD_FACTOR);
+        this.blobStart = EdgeCodeTable.HEADER_BYTES + (long) slotCount * EdgeCodeTable.SLOT_BYTES;
+        this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        channel.position(blobStart);
+        this.blob = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path snapshot = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+        long start = System.nanoTime();
+        int entries = fromSnapshot(snapshot, output);
+        Log.info("Wrote " + entries + " codes to " + output + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    // Dos pasadas por el snapshot: la primera solo cuenta, para dimensionar los slots
+    public static int fromSnapshot(Path snapshot, Path output) throws IOException {
+        int[] count = {0};
+        CodeSnapshot.read(snapshot, (code, originalUrl) -> {
+            if (originalUrl != null) {
+                count[0]++;
+            }
+        });
+
+        try (EdgeCodeTableWriter writer = new EdgeCodeTableWriter(output, count[0])) {
+            try {
+                CodeSnapshot.readTargets(snapshot, (code, target) -> {
+                    if (target != null) {
+                        writer.addUnchecked(code, target);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+            return writer.entryCount;
+        }
+    }
+
+    // Los codigos deben ser unicos (lo son en un export de la tabla)
+    public void add(String code, RedirectTarget target) throws IOException {
+        byte[] codeBytes = code.getBytes(StandardCharsets.UTF_8);
+        byte[] urlBytes = target.originalUrl().getBytes(StandardCharsets.UTF_8);
+        if (codeBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Code too long for edge code table: " + code.length() + " chars");
+        }
+        if (entryCount >= capacity) {
+            throw new IllegalStateException("Edge code table sized for " + capacity + " entries");
+        }
+        long entrySize = 2L + codeBytes.length + 9 + urlBytes.length;
+        // Los offsets son int y el lector mapea el archivo en un solo ByteBuffer
+        if (blobStart + blobSize + entrySize > Integer.MAX_VALUE) {
+            throw new IOException("Edge code table exceeds 2 GB: " + output);
+        }
+
+        RedirectPolicy policy = target.policy();
+        int flags = (policy.permanent() ? EdgeCodeTable.FLAG_PERMANENT : 0)
+                | (policy.shared() ? EdgeCodeTable.FLAG_SHARED : 0);
+        blob.writeShort(codeBytes.length);
+        blob.write(codeBytes);
+        blob.writeByte(flags);
+        blob.writeInt((int) Math.min(Integer.MAX_VALUE, policy.maxAgeSeconds()));
+        blob.writeInt(urlBytes.length);
+        blob.write(urlBytes);
+
+        long hash = BloomFilter.hash(code);
+        int slot = (int) hash & slotMask;
+        while (slots[slot * 2] != 0) {
+            slot = (slot + 1) & slotMask;
+        }
+        slots[slot * 2] = EdgeCodeTable.fingerprint(hash);
+        slots[slot * 2 + 1] = (int) blobSize;
+
+        blobSize += entrySize;
+        entryCount++;
+    }
+
+    private void addUnchecked(String code, RedirectTarget target) {
+        try {
+            add(code, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        blob.flush();
+
+        ByteBuffer header = ByteBuffer.allocate(EdgeCodeTable.HEADER_BYTES)
+                .putInt(EdgeCodeTable.MAGIC)
+                .putInt(EdgeCodeTable.VERSION)
+                .putInt(slotMask + 1)
+                .putInt(entryCount)
+                .flip();
+        writeFully(header, 0);
+
+        ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+        long position = EdgeCodeTable.HEADER_BYTES;
+        for (int slot : slots) {
+            if (!chunk.hasRemaining()) {
+                position += writeFully(chunk.flip(), position);
+                chunk.clear();
+            }
+            chunk.putInt(slot);
+        }
+        writeFully(chunk.flip(), position);
+
+        channel.force(false);
+        channel.close();
+        Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            channel.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private int writeFully(ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    // Potencia de 2 con factor de carga <= MAX_LOAD_FACTOR y al menos un slot libre
+    static int slotCount(int expectedEntries) {
+        long needed = Math.max(2, (long) Math.ceil(expectedEntries / MAX_LOAD_FACTOR) + 1);
+        if (needed > (1 << 28)) {
+            throw new IllegalArgumentException("Too many entries for edge code table: " + expectedEntries);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
@@ -0,0 +1,59 @@
+package com.shortener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Codigos de un archivo local con el formato de CodeSnapshot (code<TAB>originalUrl con la politica
+// opcional, .gz opcional).
+// El archivo se vuelve a cargar si cambia; la revision de la fecha de modificacion se hace como
+// mucho una vez por reloadIntervalMillis, en el hilo de un lookup, y mientras se recarga los
+// demas siguen leyendo la version anterior.
+public class FileRedirectStore implements RedirectStore {
+
+    private final Path path;
+    private final long reloadIntervalNanos;
+    private final AtomicLong nextCheckAt = new AtomicLong();
+    private volatile InMemoryRedirectStore current;
+    private volatile FileTime loadedModifiedTime;
+
+    public FileRedirectStore(Path path, long reloadIntervalMillis) throws IOException {
+        this.path = path;
+        this.reloadIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reloadIntervalMillis);
+        load();
+        this.nextCheckAt.set(System.nanoTime() + reloadIntervalNanos);
+    }
+
+    @Override
+    public RedirectTarget find(String code) {
+        reloadIfModified();
+        return current.find(code);
+    }
+
+    private void reloadIfModified() {
+        long checkAt = nextCheckAt.get();
+        if (reloadIntervalNanos <= 0 || System.nanoTime() - checkAt < 0
+                || !nextCheckAt.compareAndSet(checkAt, System.nanoTime() + reloadIntervalNanos)) {
+            return;
+        }
+        try {
+            if (!Files.getLastModifiedTime(path).equals(loadedModifiedTime)) {
+                load();
+            }
+        } catch (IOException e) {
+            // Se sigue sirviendo la ultima version cargada
+            Log.error("Error reloading redirect file " + path, e);
+        }
+    }
+
+    private void load() throws IOException {
+        FileTime modifiedTime = Files.getLastModifiedTime(path);
+        InMemoryRedirectStore store = InMemoryRedirectStore.fromSnapshot(path);
+        current = store;
+        loadedModifiedTime = modifiedTime;
+        Log.info("Loaded " + store.size() + " codes from " + path);
+    }
+}
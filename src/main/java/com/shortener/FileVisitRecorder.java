@@ -0,0 +1,65 @@
+package com.shortener;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+// Visitas en un archivo local, una linea "code<TAB>bucket<TAB>count" por escritura. Las cubetas
+// gruesas no se escriben: se derivan de la fina al procesar el archivo (VisitGranularity.rollUp).
+// Cada record() hace flush de su linea, asi que un proceso que muere sin close() no pierde
+// visitas; con VISIT_MODE=buffered cada flush del VisitBuffer escribe una linea por clave en vez
+// de una por visita.
+public class FileVisitRecorder implements VisitRecorder {
+
+    private final ZoneId timeZone;
+    private final VisitGranularity granularity;
+    private final Path path;
+    private final BufferedWriter writer;
+
+    public FileVisitRecorder(Path path, ZoneId timeZone, VisitGranularity granularity) throws IOException {
+        this.path = path;
+        this.timeZone = timeZone;
+        this.granularity = granularity;
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public String currentBucket() {
+        return granularity.format(ZonedDateTime.now(timeZone));
+    }
+
+    @Override
+    public void record(String code, String bucket, long count) {
+        try {
+            synchronized (writer) {
+                writer.write(code);
+                writer.write('\t');
+                writer.write(bucket);
+                writer.write('\t');
+                writer.write(Long.toString(count));
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            synchronized (writer) {
+                writer.close();
+            }
+        } catch (IOException e) {
+            Log.error("Error closing visits log " + path, e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.shortener;
+
+import java.util.concurrent.TimeUnit;
+
+// Cuenta las visitas por codigo en ventanas de un segundo. Se cuentan visitas y no llamadas: con
+// VISIT_MODE=buffered un codigo muy visitado hace una sola escritura por flush. Un codigo que supera
+// el umbral queda marcado como caliente durante holdMillis desde su ultima ventana caliente.
+// maxTrackedCodes acota las ventanas y los codigos calientes recordados; con 0 no se detecta nada.
+public class HotCodeDetector {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int visitsPerSecondThreshold;
+    private final TtlCache<String, WriteWindow> windows;
+    private final TtlCache<String, Boolean> hotCodes;
+
+    public HotCodeDetector(int visitsPerSecondThreshold, long holdMillis, int maxTrackedCodes) {
+        this.visitsPerSecondThreshold = visitsPerSecondThreshold;
+        this.windows = new TtlCache<>(maxTrackedCodes, TimeUnit.NANOSECONDS.toMillis(WINDOW_NANOS) * 2);
+        this.hotCodes = new TtlCache<>(maxTrackedCodes, holdMillis);
+    }
+
+    // visits es lo que suma la escritura (1 por visita, o lo acumulado en el VisitBuffer)
+    public boolean observeWrite(String code, long visits) {
+        WriteWindow window = windows.getOrCreate(code, WriteWindow::new);
+        if (window.add(System.nanoTime(), visits) >= visitsPerSecondThreshold) {
+            hotCodes.put(code, Boolean.TRUE);
+            return true;
+        }
+        return isHot(code);
+    }
+
+    public boolean isHot(String code) {
+        return hotCodes.get(code) != null;
+    }
+
+    private static final class WriteWindow {
+        private long windowStart;
+        private long count;
+
+        private synchronized long add(long now, long visits) {
+            if (now - windowStart >= WINDOW_NANOS) {
+                windowStart = now;
+                count = 0;
+            }
+            count += visits;
+            return count;
+        }
+    }
+}
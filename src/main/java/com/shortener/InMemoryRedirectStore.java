@@ -0,0 +1,39 @@
+package com.shortener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Codigos en un ConcurrentHashMap, para pruebas de carga y benchmarks sin red
+public class InMemoryRedirectStore implements RedirectStore {
+
+    private final Map<String, RedirectTarget> targets = new ConcurrentHashMap<>();
+
+    public static InMemoryRedirectStore fromSnapshot(Path snapshot) throws IOException {
+        InMemoryRedirectStore store = new InMemoryRedirectStore();
+        CodeSnapshot.readTargets(snapshot, (code, target) -> {
+            if (target != null) {
+                store.put(code, target);
+            }
+        });
+        return store;
+    }
+
+    @Override
+    public RedirectTarget find(String code) {
+        return targets.get(code);
+    }
+
+    public void put(String code, RedirectTarget target) {
+        targets.put(code, target);
+    }
+
+    public void remove(String code) {
+        targets.remove(code);
+    }
+
+    public int size() {
+        return targets.size();
+    }
+}
@@ -0,0 +1,49 @@
+package com.shortener;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Contadores de visitas en memoria: totalVisits y una cubeta por granularidad, igual que el item
+// de DynamoDB. Se pierden al terminar el proceso; sirve para medir el camino caliente sin red.
+public class InMemoryVisitRecorder implements VisitRecorder {
+
+    private final ZoneId timeZone;
+    private final List<VisitGranularity> granularities;
+    private final ConcurrentHashMap<String, LongAdder> totals = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<BucketKey, LongAdder> buckets = new ConcurrentHashMap<>();
+
+    public InMemoryVisitRecorder(ZoneId timeZone, List<VisitGranularity> granularities) {
+        this.timeZone = timeZone;
+        this.granularities = granularities.isEmpty() ? List.of(VisitGranularity.DAY) : granularities;
+    }
+
+    @Override
+    public String currentBucket() {
+        return granularities.get(0).format(ZonedDateTime.now(timeZone));
+    }
+
+    @Override
+    public void record(String code, String bucket, long count) {
+        totals.computeIfAbsent(code, key -> new LongAdder()).add(count);
+        for (VisitGranularity granularity : granularities) {
+            buckets.computeIfAbsent(new BucketKey(code, granularity, granularity.rollUp(bucket)),
+                    key -> new LongAdder()).add(count);
+        }
+    }
+
+    public long totalVisits(String code) {
+        LongAdder total = totals.get(code);
+        return total == null ? 0 : total.sum();
+    }
+
+    public long visits(String code, VisitGranularity granularity, String bucket) {
+        LongAdder visits = buckets.get(new BucketKey(code, granularity, granularity.rollUp(bucket)));
+        return visits == null ? 0 : visits.sum();
+    }
+
+    private record BucketKey(String code, VisitGranularity granularity, String bucket) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.shortener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+// Bucle minimo de la Lambda Runtime API para el ejecutable nativo (runtime provided.al2).
+// Pide la siguiente invocacion, la pasa a StreamRedirectHandler y publica la respuesta o el error.
+// El evento y la respuesta viajan como bytes: el ejecutable no necesita Jackson ni reflexion.
+public final class LambdaRuntime {
+
+    private static final String API_VERSION = "/2018-06-01/runtime";
+
+    private final String baseUrl;
+    private final StreamRedirectHandler handler;
+
+    private LambdaRuntime(String baseUrl, StreamRedirectHandler handler) {
+        this.baseUrl = baseUrl;
+        this.handler = handler;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String baseUrl = "http://" + System.getenv("AWS_LAMBDA_RUNTIME_API") + API_VERSION;
+
+        LambdaRuntime runtime;
+        try {
+            runtime = new LambdaRuntime(baseUrl, new StreamRedirectHandler());
+        } catch (Throwable e) {
+            Log.error("Error initializing redirect handler", e);
+            post(baseUrl + "/init/error", errorBody(e), true);
+            System.exit(1);
+            return;
+        }
+
+        while (true) {
+            runtime.processNextInvocation();
+        }
+    }
+
+    private void processNextInvocation() throws IOException {
+        HttpURLConnection next = (HttpURLConnection) new URL(baseUrl + "/invocation/next").openConnection();
+        // La llamada queda bloqueada hasta que llega una invocacion: sin timeout de lectura
+        next.setReadTimeout(0);
+
+        String requestId = next.getHeaderField("Lambda-Runtime-Aws-Request-Id");
+        long deadlineMillis = Long.parseLong(next.getHeaderField("Lambda-Runtime-Deadline-Ms"));
+        String functionArn = next.getHeaderField("Lambda-Runtime-Invoked-Function-Arn");
+
+        byte[] event;
+        try (InputStream body = next.getInputStream()) {
+            event = body.readAllBytes();
+        }
+
+        try {
+            ByteArrayOutputStream json = new ByteArrayOutputStream(512);
+            handler.handleRequest(new ByteArrayInputStream(event), json,
+                    new RuntimeContext(requestId, deadlineMillis, functionArn));
+            post(baseUrl + "/invocation/" + requestId + "/response", json.toByteArray(), false);
+        } catch (Throwable e) {
+            Log.error("Error handling invocation " + requestId, e);
+            post(baseUrl + "/invocation/" + requestId + "/error", errorBody(e), true);
+        }
+    }
+
+    private static void post(String url, byte[] body, boolean error) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        if (error) {
+            connection.setRequestProperty("Lambda-Runtime-Function-Error-Type", "Unhandled");
+        }
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        // Leer el codigo de estado completa el request y deja la conexion lista para reutilizarse
+        int status = connection.getResponseCode();
+        InputStream response = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (response != null) {
+            response.close();
+        }
+    }
+
+    private static byte[] errorBody(Throwable e) {
+        StringBuilder json = new StringBuilder(128).append("{\"errorMessage\":");
+        Json.appendString(json, String.valueOf(e.getMessage()));
+        json.append(",\"errorType\":");
+        Json.appendString(json, e.getClass().getName());
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
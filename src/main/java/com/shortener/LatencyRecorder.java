@@ -0,0 +1,91 @@
+package com.shortener;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Histogramas de latencia por fase que sobreviven entre invocaciones del mismo contenedor.
+// Recorder de HdrHistogram permite registrar sin locks desde varios hilos; cada snapshot
+// toma el histograma del intervalo y lo reinicia, devolviendole el del intervalo anterior para
+// que lo reutilice en vez de crear uno nuevo. Se puede usar igual desde un benchmark local.
+public class LatencyRecorder {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(15);
+
+    private final Map<RequestMetrics.Phase, Recorder> phases = new EnumMap<>(RequestMetrics.Phase.class);
+    private final Recorder total = newRecorder();
+    private final Map<RequestMetrics.Phase, Histogram> phaseIntervals = new EnumMap<>(RequestMetrics.Phase.class);
+    private Histogram totalInterval;
+    private final long dumpIntervalNanos;
+    private final AtomicLong lastDumpAt = new AtomicLong(System.nanoTime());
+
+    public LatencyRecorder(long dumpIntervalMillis) {
+        for (RequestMetrics.Phase phase : RequestMetrics.Phase.values()) {
+            phases.put(phase, newRecorder());
+        }
+        this.dumpIntervalNanos = TimeUnit.MILLISECONDS.toNanos(dumpIntervalMillis);
+    }
+
+    public void record(RequestMetrics metrics) {
+        for (RequestMetrics.Phase phase : RequestMetrics.Phase.values()) {
+            long nanos = metrics.phaseNanos(phase);
+            if (nanos >= 0) {
+                record(phase, nanos);
+            }
+        }
+        recordValue(total, metrics.totalNanos());
+    }
+
+    public void record(RequestMetrics.Phase phase, long nanos) {
+        recordValue(phases.get(phase), nanos);
+    }
+
+    // En Lambda no hay temporizador mientras el contenedor esta congelado: el handler llama a
+    // esto al final de cada invocacion y solo un hilo hace el dump de cada intervalo
+    public void dumpIfDue() {
+        long last = lastDumpAt.get();
+        long now = System.nanoTime();
+        if (now - last >= dumpIntervalNanos && lastDumpAt.compareAndSet(last, now)) {
+            Log.info("Latency percentiles", snapshot(now - last));
+        }
+    }
+
+    // Percentiles en microsegundos desde el snapshot anterior, como campos JSON para Log.info.
+    // synchronized porque los histogramas reciclados no se pueden compartir entre dos snapshots
+    public synchronized String snapshot(long intervalNanos) {
+        StringBuilder json = new StringBuilder(512);
+        json.append(",\"unit\":\"microseconds\",\"intervalMs\":").append(TimeUnit.NANOSECONDS.toMillis(intervalNanos));
+
+        for (Map.Entry<RequestMetrics.Phase, Recorder> phase : phases.entrySet()) {
+            Histogram interval = phase.getValue().getIntervalHistogram(phaseIntervals.get(phase.getKey()));
+            phaseIntervals.put(phase.getKey(), interval);
+            appendPercentiles(json, phase.getKey().metricName(), interval);
+        }
+        totalInterval = total.getIntervalHistogram(totalInterval);
+        appendPercentiles(json, "TotalLatency", totalInterval);
+
+        return json.toString();
+    }
+
+    private static void appendPercentiles(StringBuilder json, String name, Histogram histogram) {
+        json.append(",\"").append(name).append("\":{\"count\":").append(histogram.getTotalCount())
+                .append(",\"p50\":").append(histogram.getValueAtPercentile(50.0))
+                .append(",\"p90\":").append(histogram.getValueAtPercentile(90.0))
+                .append(",\"p99\":").append(histogram.getValueAtPercentile(99.0))
+                .append(",\"p999\":").append(histogram.getValueAtPercentile(99.9))
+                .append(",\"max\":").append(histogram.getMaxValue())
+                .append('}');
+    }
+
+    private static void recordValue(Recorder recorder, long nanos) {
+        recorder.recordValue(Math.min(MAX_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))));
+    }
+
+    private static Recorder newRecorder() {
+        return new Recorder(MAX_TRACKABLE_MICROS, 3);
+    }
+}
@@ -0,0 +1,105 @@
+package com.shortener;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Logs en una linea JSON por evento. El nivel sale de LOG_LEVEL y los mensajes de debug se
+// construyen solo si el nivel esta activo. LOG_SAMPLE_RATE es la fraccion de requests exitosos
+// que se loguean; los errores se loguean siempre y con el stack trace completo.
+public final class Log {
+
+    public enum Level { ERROR, WARN, INFO, DEBUG }
+
+    private static final Level LEVEL = parseLevel(System.getenv("LOG_LEVEL"));
+    private static final double SAMPLE_RATE = parseSampleRate(System.getenv("LOG_SAMPLE_RATE"));
+
+    private Log() {
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() <= LEVEL.ordinal();
+    }
+
+    // En DEBUG se loguea todo, sin muestreo
+    public static boolean sampled() {
+        return LEVEL == Level.DEBUG || SAMPLE_RATE >= 1.0
+                || (SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE);
+    }
+
+    public static void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            write(Level.DEBUG, message.get(), null);
+        }
+    }
+
+    public static void info(String message) {
+        if (isEnabled(Level.INFO)) {
+            write(Level.INFO, message, null);
+        }
+    }
+
+    // fields son campos JSON ya armados, cada uno precedido por una coma
+    public static void info(String message, CharSequence fields) {
+        if (isEnabled(Level.INFO)) {
+            StringBuilder json = new StringBuilder(64 + fields.length());
+            json.append("{\"level\":\"").append(Level.INFO).append("\",\"message\":");
+            Json.appendString(json, message);
+            System.out.println(json.append(fields).append('}'));
+        }
+    }
+
+    public static void warn(String message, Throwable error) {
+        if (isEnabled(Level.WARN)) {
+            write(Level.WARN, message, error);
+        }
+    }
+
+    public static void error(String message, Throwable error) {
+        write(Level.ERROR, message, error);
+    }
+
+    static void write(Level level, String message, Throwable error) {
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"level\":\"").append(level).append("\",\"message\":");
+        Json.appendString(json, message);
+        appendError(json, error);
+        System.out.println(json.append('}'));
+    }
+
+    static void appendError(StringBuilder json, Throwable error) {
+        if (error == null) {
+            return;
+        }
+        json.append(",\"error\":");
+        Json.appendString(json, String.valueOf(error));
+        StringWriter stack = new StringWriter();
+        error.printStackTrace(new PrintWriter(stack));
+        json.append(",\"stack\":");
+        Json.appendString(json, stack.toString());
+    }
+
+    private static Level parseLevel(String value) {
+        if (value == null || value.isBlank()) {
+            return Level.INFO;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    private static double parseSampleRate(String value) {
+        if (value == null || value.isBlank()) {
+            return 0.01;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0.01;
+        }
+    }
+}
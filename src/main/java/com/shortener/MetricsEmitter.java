@@ -0,0 +1,104 @@
+package com.shortener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Publica las latencias por fase en CloudWatch con Embedded Metric Format: una linea JSON en
+// stdout que CloudWatch Logs convierte en metricas. Con flushEvery > 1 se agrupan varias
+// invocaciones por combinacion de dimensiones, usando arreglos de valores (maximo 100 en EMF).
+public class MetricsEmitter {
+
+    private static final int MAX_VALUES_PER_METRIC = 100;
+
+    private final String namespace;
+    private final int flushEvery;
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+    private int pending;
+
+    public MetricsEmitter(String namespace, int flushEvery) {
+        this.namespace = namespace;
+        this.flushEvery = Math.max(1, Math.min(flushEvery, MAX_VALUES_PER_METRIC));
+    }
+
+    public synchronized void record(RequestMetrics metrics, int statusCode, String cacheOutcome) {
+        String status = Integer.toString(statusCode);
+        String cache = cacheOutcome != null ? cacheOutcome : "none";
+        String cold = metrics.coldStart() ? "true" : "false";
+
+        Group group = groups.computeIfAbsent(status + '|' + cache + '|' + cold,
+                key -> new Group(status, cache, cold));
+        group.add(metrics);
+
+        if (++pending >= flushEvery) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() {
+        for (Group group : groups.values()) {
+            System.out.println(group.toEmf(namespace));
+        }
+        groups.clear();
+        pending = 0;
+    }
+
+    private static final class Group {
+        private final String status;
+        private final String cache;
+        private final String cold;
+        private final Map<String, List<Double>> values = new LinkedHashMap<>();
+
+        private Group(String status, String cache, String cold) {
+            this.status = status;
+            this.cache = cache;
+            this.cold = cold;
+        }
+
+        private void add(RequestMetrics metrics) {
+            for (RequestMetrics.Phase phase : RequestMetrics.Phase.values()) {
+                long nanos = metrics.phaseNanos(phase);
+                if (nanos >= 0) {
+                    values.computeIfAbsent(phase.metricName(), name -> new ArrayList<>()).add(nanos / 1_000_000.0);
+                }
+            }
+            values.computeIfAbsent("TotalLatency", name -> new ArrayList<>()).add(metrics.totalNanos() / 1_000_000.0);
+        }
+
+        private String toEmf(String namespace) {
+            StringBuilder json = new StringBuilder(512);
+            json.append("{\"_aws\":{\"Timestamp\":").append(System.currentTimeMillis())
+                    .append(",\"CloudWatchMetrics\":[{\"Namespace\":");
+            Json.appendString(json, namespace);
+            json.append(",\"Dimensions\":[[\"StatusCode\",\"CacheOutcome\",\"ColdStart\"],[]],\"Metrics\":[");
+
+            boolean first = true;
+            for (String name : values.keySet()) {
+                json.append(first ? "" : ",").append("{\"Name\":\"").append(name).append("\",\"Unit\":\"Milliseconds\"}");
+                first = false;
+            }
+
+            json.append("]}]},\"StatusCode\":\"").append(status)
+                    .append("\",\"CacheOutcome\":");
+            Json.appendString(json, cache);
+            json.append(",\"ColdStart\":\"").append(cold).append('"');
+
+            for (Map.Entry<String, List<Double>> metric : values.entrySet()) {
+                json.append(",\"").append(metric.getKey()).append("\":");
+                List<Double> samples = metric.getValue();
+                if (samples.size() == 1) {
+                    json.append(samples.get(0));
+                } else {
+                    json.append('[');
+                    for (int i = 0; i < samples.size(); i++) {
+                        json.append(i == 0 ? "" : ",").append(samples.get(i));
+                    }
+                    json.append(']');
+                }
+            }
+
+            return json.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,651 @@
+package com.shortener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Servidor HTTP/1.1 no bloqueante para nodos de borde: java -cp redirect-handler-all.jar
+// com.shortener.NioRedirectServer. Un hilo acepta conexiones y las reparte entre NIO_EVENT_LOOPS
+// selectores. Cada selector lee en un buffer compartido, atiende todos los requests completos que
+// trae cada lectura (keep-alive y pipelining, respuestas en orden) y escribe las respuestas desde
+// un buffer directo con las plantillas de ResponseRenderer. Una conexion solo guarda bytes propios
+// cuando queda un request a medias o el socket no acepta toda la respuesta.
+// Los aciertos de cache y de la tabla de borde se responden en el selector (RedirectService.handleInline);
+// el resto corre en un pool de workers (hilos virtuales si la JVM los tiene), asi que un GetItem
+// lento no frena al selector. Cada conexion tiene como mucho un request en un worker: mientras
+// tanto no se lee y los requests encadenados esperan en pendingInput, lo que mantiene el orden de las
+// respuestas. Las conexiones sin actividad durante NIO_IDLE_TIMEOUT_SECONDS se cierran.
+public final class NioRedirectServer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_REQUEST_SIZE = 8 * 1024;
+    private static final String HEALTH_PATH = "/__health";
+    private static final LongSupplier NO_DEADLINE = () -> Long.MAX_VALUE;
+
+    private static final byte[] CONNECTION_CLOSE = ascii("Connection: close\r\n");
+    private static final byte[] CONNECTION_KEEP_ALIVE = ascii("Connection: keep-alive\r\n");
+    private static final byte[] NO_CONNECTION_HEADER = new byte[0];
+    private static final byte[] HEALTH_RESPONSE = ascii("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n");
+
+    private static final RedirectResponse BAD_REQUEST = RedirectResponse.error(400, "Bad request");
+    private static final RedirectResponse REQUEST_TOO_LARGE = RedirectResponse.error(431, "Request too large");
+    private static final RedirectResponse CHUNKED_NOT_SUPPORTED = RedirectResponse.error(501, "Chunked requests are not supported");
+    private static final RedirectResponse RESPONSE_TOO_LARGE = RedirectResponse.error(500, "Response too large");
+    private static final RedirectResponse UNAVAILABLE = RedirectResponse.error(503, "Server is shutting down");
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final RedirectService service;
+    private final ExecutorService workers;
+    private final long idleTimeoutNanos;
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final Thread acceptor;
+    private volatile boolean running = true;
+
+    NioRedirectServer(RedirectService service, InetSocketAddress address, int backlog, int loopCount,
+                      int workerThreads, long idleTimeoutMillis) throws IOException {
+        this.service = service;
+        this.workers = RedirectServer.requestExecutor(workerThreads);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, backlog);
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(i);
+        }
+        this.acceptor = new Thread(this::acceptConnections, "nio-redirect-acceptor");
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = RedirectService.envInt("PORT", 8080);
+        long graceMillis = RedirectService.envInt("SHUTDOWN_GRACE_SECONDS", 10) * 1000L;
+
+        RedirectService service = new RedirectService(true);
+        service.prime();
+
+        NioRedirectServer server = new NioRedirectServer(service, new InetSocketAddress(port),
+                RedirectService.envInt("SERVER_BACKLOG", 1024),
+                RedirectService.envInt("NIO_EVENT_LOOPS", Runtime.getRuntime().availableProcessors()),
+                RedirectService.envInt("NIO_WORKER_THREADS", Runtime.getRuntime().availableProcessors() * 16),
+                RedirectService.envInt("NIO_IDLE_TIMEOUT_SECONDS", 75) * 1000L);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(graceMillis), "nio-redirect-shutdown"));
+        server.start();
+        Log.info("NIO redirect server listening on port " + port + " with " + server.loops.length + " event loops");
+    }
+
+    void start() {
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+        acceptor.start();
+    }
+
+    // Deja de aceptar conexiones, espera a los requests que estan en los workers (los selectores
+    // siguen corriendo para escribir sus respuestas; los que llegan despues reciben 503), detiene los
+    // selectores y escribe lo pendiente del servicio. Las respuestas a medio escribir se pierden.
+    void stop(long graceMillis) {
+        Log.info("Stopping NIO redirect server");
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            Log.warn("Error closing server socket", e);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(graceMillis);
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(graceMillis, TimeUnit.MILLISECONDS)) {
+                Log.warn("Requests still running after " + graceMillis + " ms", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+            try {
+                loop.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        service.close(graceMillis);
+        Log.info("NIO redirect server stopped");
+    }
+
+    private void acceptConnections() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                Log.warn("Error accepting connection", e);
+            }
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        private final int index;
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        // Respuestas de los workers, que se escriben en el hilo del selector
+        private final Queue<Runnable> completed = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final HttpRequest request = new HttpRequest();
+        private long requestCount;
+        private long nextSweepAt;
+
+        private EventLoop(int index) throws IOException {
+            this.index = index;
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "nio-redirect-loop-" + index);
+        }
+
+        private void register(SocketChannel channel) {
+            accepted.add(channel);
+            selector.wakeup();
+        }
+
+        private void complete(Runnable completion) {
+            completed.add(completion);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select(SWEEP_INTERVAL_MILLIS);
+                    registerAccepted();
+                    runCompleted();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.onReadable();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.onWritable();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            Log.debug(() -> "Closing connection after error: " + e);
+                            connection.close();
+                        }
+                    }
+                    closeIdleConnections();
+                } catch (IOException e) {
+                    Log.error("Error in NIO event loop " + index, e);
+                }
+            }
+
+            for (SelectionKey key : selector.keys()) {
+                ((Connection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                Log.warn("Error closing selector", e);
+            }
+        }
+
+        private void registerAccepted() throws IOException {
+            SocketChannel channel;
+            while ((channel = accepted.poll()) != null) {
+                Connection connection = new Connection(this, channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            }
+        }
+
+        private void runCompleted() {
+            Runnable completion;
+            while ((completion = completed.poll()) != null) {
+                completion.run();
+            }
+        }
+
+        // Una vez por segundo: cierra las conexiones sin un request completo ni bytes escritos durante
+        // el timeout (keep-alive ociosas, clientes que mandan el request de a poco o que no leen)
+        private void closeIdleConnections() {
+            long now = System.nanoTime();
+            if (idleTimeoutNanos <= 0 || now - nextSweepAt < 0) {
+                return;
+            }
+            nextSweepAt = now + TimeUnit.MILLISECONDS.toNanos(SWEEP_INTERVAL_MILLIS);
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                if (!connection.inFlight && now - connection.lastActivity > idleTimeoutNanos) {
+                    connection.close();
+                }
+            }
+        }
+
+        private String nextRequestId() {
+            return "nio-" + index + "-" + (++requestCount);
+        }
+    }
+
+    private final class Connection {
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private SelectionKey key;
+        // Request incompleto de la lectura anterior
+        private byte[] pendingInput;
+        // Respuestas que el socket no acepto; mientras existan no se atienden mas requests
+        private ByteBuffer pendingOutput;
+        private boolean closeAfterWrite;
+        // Hay un request en un worker; no se lee ni se atienden los siguientes hasta su respuesta
+        private boolean inFlight;
+        // Ultima respuesta o escritura al socket; leer un request a medias no cuenta
+        private long lastActivity = System.nanoTime();
+
+        private Connection(EventLoop loop, SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+        }
+
+        private void onReadable() throws IOException {
+            ByteBuffer in = loop.readBuffer;
+            in.clear();
+            if (pendingInput != null) {
+                in.put(pendingInput);
+                pendingInput = null;
+            }
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            handleRequests();
+        }
+
+        private void onWritable() throws IOException {
+            if (channel.write(pendingOutput) > 0) {
+                lastActivity = System.nanoTime();
+            }
+            if (pendingOutput.hasRemaining()) {
+                return;
+            }
+            pendingOutput = null;
+            if (closeAfterWrite) {
+                close();
+                return;
+            }
+            resume();
+        }
+
+        // Respuesta del worker, en el hilo del selector
+        private void onHandled(RedirectResponse response, boolean head, boolean close, byte[] keepAliveHeader) {
+            inFlight = false;
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                respond(response, head, close, keepAliveHeader);
+                resume();
+            } catch (IOException | RuntimeException e) {
+                Log.debug(() -> "Closing connection after error: " + e);
+                close();
+            }
+        }
+
+        // Sigue con los requests que esperaban en pendingInput, o vuelve a leer del socket
+        private void resume() throws IOException {
+            if (pendingInput == null || closeAfterWrite || pendingOutput != null) {
+                finish();
+                return;
+            }
+            ByteBuffer in = loop.readBuffer;
+            in.clear();
+            in.put(pendingInput);
+            pendingInput = null;
+            in.flip();
+            handleRequests();
+        }
+
+        // Atiende los requests completos de readBuffer en orden; lo que sobra queda en pendingInput.
+        // Un request que RedirectService no resuelve inline se pasa a un worker y corta la vuelta.
+        private void handleRequests() throws IOException {
+            ByteBuffer in = loop.readBuffer;
+            HttpRequest request = loop.request;
+
+            while (in.hasRemaining() && !closeAfterWrite && pendingOutput == null && !inFlight) {
+                int end = request.parse(in.array(), in.position(), in.limit());
+                if (end < 0) {
+                    break;
+                }
+                in.position(end);
+
+                if (request.tooLarge) {
+                    respond(REQUEST_TOO_LARGE, false, true, NO_CONNECTION_HEADER);
+                } else if (request.malformed) {
+                    respond(BAD_REQUEST, false, true, NO_CONNECTION_HEADER);
+                } else if (request.chunked) {
+                    respond(CHUNKED_NOT_SUPPORTED, false, true, NO_CONNECTION_HEADER);
+                } else if (HEALTH_PATH.equals(request.path)) {
+                    put(HEALTH_RESPONSE, request.close);
+                } else {
+                    dispatch(request);
+                }
+            }
+
+            if (in.hasRemaining() && !closeAfterWrite) {
+                pendingInput = new byte[in.remaining()];
+                in.get(pendingInput);
+            }
+            finish();
+        }
+
+        // Los aciertos de cache y de la tabla de borde se responden en el selector, sin pasar por un
+        // worker ni por wakeup(). El parser es del selector y se reutiliza: el worker recibe copias
+        // de lo que necesita.
+        private void dispatch(HttpRequest request) throws IOException {
+            String method = request.method;
+            String code = request.path.length() > 1 ? request.path.substring(1) : null;
+            String requestId = loop.nextRequestId();
+            boolean head = request.head;
+            boolean close = request.close;
+            byte[] keepAliveHeader = request.keepAliveHeader();
+
+            RedirectResponse inline = service.handleInline(method, code, requestId);
+            if (inline != null) {
+                respond(inline, head, close, keepAliveHeader);
+                return;
+            }
+
+            inFlight = true;
+            try {
+                workers.execute(() -> {
+                    RedirectResponse response;
+                    try {
+                        response = service.handle(method, code, requestId, NO_DEADLINE);
+                    } catch (RuntimeException e) {
+                        Log.error("Error handling request " + requestId, e);
+                        response = RedirectResponse.error(500, "Internal server error");
+                    }
+                    RedirectResponse result = response;
+                    loop.complete(() -> onHandled(result, head, close, keepAliveHeader));
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight = false;
+                respond(UNAVAILABLE, head, true, keepAliveHeader);
+            }
+        }
+
+        // Escribe lo acumulado y ajusta el interes del selector: nada mientras hay un request en un
+        // worker, escritura mientras el socket no acepte todo y lectura en el resto de los casos
+        private void finish() throws IOException {
+            flush();
+            if (closeAfterWrite && pendingOutput == null) {
+                close();
+                return;
+            }
+            if (pendingOutput != null) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                key.interestOps(inFlight ? 0 : SelectionKey.OP_READ);
+            }
+        }
+
+        private void respond(RedirectResponse response, boolean head, boolean close, byte[] keepAliveHeader)
+                throws IOException {
+            lastActivity = System.nanoTime();
+            closeAfterWrite |= close;
+            byte[] connectionHeader = close ? CONNECTION_CLOSE : keepAliveHeader;
+            if (ResponseRenderer.writeHttp(response, connectionHeader, head, loop.writeBuffer)) {
+                return;
+            }
+            flush();
+            if (pendingOutput != null) {
+                // El socket esta lleno: se codifica aparte y se escribe cuando drene
+                ByteBuffer spill = ByteBuffer.allocate(BUFFER_SIZE);
+                if (!ResponseRenderer.writeHttp(response, connectionHeader, head, spill)) {
+                    ResponseRenderer.writeHttp(RESPONSE_TOO_LARGE, CONNECTION_CLOSE, head, spill);
+                    closeAfterWrite = true;
+                }
+                spill.flip();
+                pendingOutput = append(pendingOutput, spill);
+                return;
+            }
+            if (!ResponseRenderer.writeHttp(response, connectionHeader, head, loop.writeBuffer)) {
+                ResponseRenderer.writeHttp(RESPONSE_TOO_LARGE, CONNECTION_CLOSE, head, loop.writeBuffer);
+                closeAfterWrite = true;
+            }
+        }
+
+        private void put(byte[] response, boolean close) throws IOException {
+            lastActivity = System.nanoTime();
+            closeAfterWrite |= close;
+            if (loop.writeBuffer.remaining() < response.length) {
+                flush();
+            }
+            if (pendingOutput != null) {
+                pendingOutput = append(pendingOutput, ByteBuffer.wrap(response));
+            } else {
+                loop.writeBuffer.put(response);
+            }
+        }
+
+        // Escribe writeBuffer; lo que el socket no acepta pasa a pendingOutput y se espera OP_WRITE
+        private void flush() throws IOException {
+            ByteBuffer out = loop.writeBuffer;
+            out.flip();
+            while (out.hasRemaining() && channel.write(out) > 0) {
+                // el socket sigue aceptando bytes
+            }
+            if (out.hasRemaining()) {
+                ByteBuffer remaining = ByteBuffer.allocate(out.remaining());
+                remaining.put(out).flip();
+                pendingOutput = pendingOutput == null ? remaining : append(pendingOutput, remaining);
+            }
+            out.clear();
+        }
+
+        private ByteBuffer append(ByteBuffer pending, ByteBuffer more) {
+            ByteBuffer joined = ByteBuffer.allocate(pending.remaining() + more.remaining());
+            joined.put(pending).put(more).flip();
+            return joined;
+        }
+
+        private void close() {
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Log.debug(() -> "Error closing connection: " + e);
+            }
+        }
+    }
+
+    // Request line y los headers que importan (Connection, Content-Length, Transfer-Encoding) de un
+    // request HTTP/1.x. Se reutiliza en cada request del selector.
+    static final class HttpRequest {
+        String method;
+        String path;
+        boolean head;
+        boolean http10;
+        boolean close;
+        boolean keepAlive;
+        boolean chunked;
+        boolean malformed;
+        boolean tooLarge;
+
+        // Devuelve la posicion donde termina el request (headers y cuerpo) o -1 si esta incompleto.
+        // Si en MAX_REQUEST_SIZE bytes no terminan los headers se consume todo con tooLarge (431).
+        int parse(byte[] buf, int start, int limit) {
+            method = null;
+            path = null;
+            head = http10 = close = keepAlive = chunked = malformed = tooLarge = false;
+            int headersEnd = indexOf(buf, start, limit);
+            if (headersEnd < 0) {
+                if (limit - start < MAX_REQUEST_SIZE) {
+                    return -1;
+                }
+                tooLarge = true;
+                close = true;
+                return limit;
+            }
+
+            int lineEnd = lineEnd(buf, start, headersEnd + 2);
+            int methodEnd = indexOf(buf, start, lineEnd, (byte) ' ');
+            int targetEnd = methodEnd < 0 ? -1 : indexOf(buf, methodEnd + 1, lineEnd, (byte) ' ');
+            if (targetEnd < 0 || !startsWith(buf, targetEnd + 1, lineEnd, "HTTP/1.")) {
+                malformed = true;
+                close = true;
+                return headersEnd + 4;
+            }
+            method = method(buf, start, methodEnd);
+            head = "HEAD".equals(method);
+            http10 = startsWith(buf, targetEnd + 1, lineEnd, "HTTP/1.0");
+            path = path(buf, methodEnd + 1, targetEnd);
+
+            long contentLength = 0;
+            int line = lineEnd + 2;
+            while (line < headersEnd + 2) {
+                int end = lineEnd(buf, line, headersEnd + 2);
+                int colon = indexOf(buf, line, end, (byte) ':');
+                if (colon > 0) {
+                    if (equalsIgnoreCase(buf, line, colon, "connection")) {
+                        String value = new String(buf, colon + 1, end - colon - 1, StandardCharsets.US_ASCII).trim();
+                        close = value.equalsIgnoreCase("close");
+                        keepAlive = value.equalsIgnoreCase("keep-alive");
+                    } else if (equalsIgnoreCase(buf, line, colon, "content-length")) {
+                        try {
+                            contentLength = Long.parseLong(new String(buf, colon + 1, end - colon - 1,
+                                    StandardCharsets.US_ASCII).trim());
+                        } catch (NumberFormatException e) {
+                            malformed = true;
+                        }
+                    } else if (equalsIgnoreCase(buf, line, colon, "transfer-encoding")) {
+                        chunked = true;
+                    }
+                }
+                line = end + 2;
+            }
+            // HTTP/1.0 cierra salvo que pida keep-alive; HTTP/1.1 mantiene salvo Connection: close
+            close |= http10 && !keepAlive;
+            if (malformed || chunked || contentLength < 0 || contentLength > MAX_REQUEST_SIZE) {
+                malformed |= contentLength < 0 || contentLength > MAX_REQUEST_SIZE;
+                close = true;
+                return headersEnd + 4;
+            }
+
+            long end = headersEnd + 4 + contentLength;
+            return end > limit ? -1 : (int) end;
+        }
+
+        byte[] keepAliveHeader() {
+            return http10 ? CONNECTION_KEEP_ALIVE : NO_CONNECTION_HEADER;
+        }
+
+        // Los metodos comunes usan la constante, sin crear un String por request
+        private static String method(byte[] buf, int start, int end) {
+            if (startsWith(buf, start, end, "GET") && end - start == 3) {
+                return "GET";
+            }
+            if (startsWith(buf, start, end, "HEAD") && end - start == 4) {
+                return "HEAD";
+            }
+            if (startsWith(buf, start, end, "OPTIONS") && end - start == 7) {
+                return "OPTIONS";
+            }
+            return new String(buf, start, end - start, StandardCharsets.US_ASCII);
+        }
+
+        private static String path(byte[] buf, int start, int end) {
+            int query = indexOf(buf, start, end, (byte) '?');
+            int pathEnd = query < 0 ? end : query;
+            String path = new String(buf, start, pathEnd - start, StandardCharsets.UTF_8);
+            if (path.indexOf('%') < 0) {
+                return path;
+            }
+            try {
+                // URLDecoder convierte '+' en espacio, que en un path es literal
+                return URLDecoder.decode(path.replace("+", "%2B"), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                return path;
+            }
+        }
+
+        // Posicion del "\r\n\r\n" que cierra los headers
+        private static int indexOf(byte[] buf, int start, int limit) {
+            for (int i = start; i + 3 < limit; i++) {
+                if (buf[i] == '\r' && buf[i + 1] == '\n' && buf[i + 2] == '\r' && buf[i + 3] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static int indexOf(byte[] buf, int start, int end, byte value) {
+            for (int i = start; i < end; i++) {
+                if (buf[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static int lineEnd(byte[] buf, int start, int limit) {
+            for (int i = start; i + 1 < limit; i++) {
+                if (buf[i] == '\r' && buf[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            return limit;
+        }
+
+        private static boolean startsWith(byte[] buf, int start, int end, String prefix) {
+            if (end - start < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (buf[start + i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean equalsIgnoreCase(byte[] buf, int start, int end, String name) {
+            if (end - start != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (Character.toLowerCase((char) buf[start + i]) != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,70 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+// Politica de cache de la redireccion, guardada en el item del codigo:
+//   redirectType: "permanent" (301) o "temporary" (302, default)
+//   cacheMaxAge:  segundos que navegadores y CDN pueden reutilizar la redireccion (default 0)
+//   cacheScope:   "public" (cualquier cache, incluida una CDN) o "private" (solo el navegador, default)
+// Sin cacheMaxAge la respuesta sale con no-cache: cada visita llega a la Lambda y se cuenta. Con
+// max-age las visitas servidas desde una cache no se registran.
+public record RedirectPolicy(boolean permanent, long maxAgeSeconds, boolean shared) {
+
+    public static final RedirectPolicy DEFAULT = new RedirectPolicy(false, 0, false);
+
+    static final String TYPE_ATTRIBUTE = "redirectType";
+    static final String MAX_AGE_ATTRIBUTE = "cacheMaxAge";
+    static final String SCOPE_ATTRIBUTE = "cacheScope";
+
+    public int statusCode() {
+        return permanent ? 301 : 302;
+    }
+
+    public String cacheControl() {
+        if (maxAgeSeconds <= 0) {
+            return "no-cache";
+        }
+        return (shared ? "public" : "private") + ", max-age=" + maxAgeSeconds;
+    }
+
+    // Valores con los que se guarda en la tabla y en los snapshots (CodeSnapshot)
+    public String redirectType() {
+        return permanent ? "permanent" : "temporary";
+    }
+
+    public String cacheScope() {
+        return shared ? "public" : "private";
+    }
+
+    static RedirectPolicy fromItem(Map<String, AttributeValue> item) {
+        AttributeValue maxAge = item.get(MAX_AGE_ATTRIBUTE);
+        return of(stringAttribute(item, TYPE_ATTRIBUTE), maxAge == null ? null : maxAge.n(),
+                stringAttribute(item, SCOPE_ATTRIBUTE));
+    }
+
+    static RedirectPolicy of(String redirectType, String cacheMaxAge, String cacheScope) {
+        boolean permanent = "permanent".equalsIgnoreCase(redirectType);
+        boolean shared = "public".equalsIgnoreCase(cacheScope);
+        long maxAgeSeconds = 0;
+        if (cacheMaxAge != null && !cacheMaxAge.isEmpty()) {
+            try {
+                maxAgeSeconds = Math.max(0, Long.parseLong(cacheMaxAge));
+            } catch (NumberFormatException e) {
+                // Un valor invalido deja la redireccion sin cache, que es lo seguro para las visitas
+                Log.warn("Invalid " + MAX_AGE_ATTRIBUTE + " value: " + cacheMaxAge, e);
+            }
+        }
+
+        if (!permanent && maxAgeSeconds == 0 && !shared) {
+            return DEFAULT;
+        }
+        return new RedirectPolicy(permanent, maxAgeSeconds, shared);
+    }
+
+    private static String stringAttribute(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value == null ? null : value.s();
+    }
+}
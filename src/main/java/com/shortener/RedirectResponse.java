@@ -0,0 +1,31 @@
+package com.shortener;
+
+// Resultado de un request, independiente del transporte; ResponseRenderer lo convierte en la
+// respuesta de API Gateway. location ya viene escapada con Urls.toLocation. Las redirecciones son
+// inmutables y se guardan tal cual en la cache de URLs.
+public record RedirectResponse(int statusCode, String location, RedirectPolicy policy, String errorMessage) {
+
+    public static final RedirectResponse OPTIONS = new RedirectResponse(200, null, null, null);
+    public static final RedirectResponse MISSING_CODE = error(400, "Code parameter is required");
+    public static final RedirectResponse METHOD_NOT_ALLOWED = error(405, "Method not allowed");
+
+    public static RedirectResponse redirect(String location) {
+        return redirect(location, RedirectPolicy.DEFAULT);
+    }
+
+    public static RedirectResponse redirect(String location, RedirectPolicy policy) {
+        return new RedirectResponse(policy.statusCode(), location, policy, null);
+    }
+
+    public static RedirectResponse error(int statusCode, String message) {
+        return new RedirectResponse(statusCode, null, null, message);
+    }
+
+    public static RedirectResponse notFound(String code) {
+        return error(404, "URL not found for code: " + code);
+    }
+
+    public boolean isRedirect() {
+        return location != null;
+    }
+}
@@ -0,0 +1,137 @@
+package com.shortener;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Servidor HTTP con la misma logica de la Lambda (RedirectService), para correr en contenedores
+// detras de un balanceador: java -cp redirect-handler-all.jar com.shortener.RedirectServer
+// Atiende cada request en un hilo virtual si la JVM los tiene (Java 21+) y en un pool de hilos en
+// Java 17. Al recibir SIGTERM deja de aceptar conexiones, termina los requests en curso y recien
+// entonces escribe las visitas y metricas pendientes (stop() es el unico hook de apagado).
+public final class RedirectServer {
+
+    // Los codigos con "__" estan reservados (ver RedirectService.PRIMING_CODE)
+    private static final String HEALTH_PATH = "/__health";
+    private static final LongSupplier NO_DEADLINE = () -> Long.MAX_VALUE;
+
+    private final RedirectService service;
+    private final ExecutorService executor;
+    private final HttpServer server;
+    private final AtomicLong requestIds = new AtomicLong();
+
+    RedirectServer(RedirectService service, InetSocketAddress address, int backlog) throws IOException {
+        this.service = service;
+        this.executor = requestExecutor(0);
+        this.server = HttpServer.create(address, backlog);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = RedirectService.envInt("PORT", 8080);
+        long graceMillis = RedirectService.envInt("SHUTDOWN_GRACE_SECONDS", 10) * 1000L;
+
+        RedirectService service = new RedirectService(true);
+        service.prime();
+
+        RedirectServer server = new RedirectServer(service, new InetSocketAddress(port),
+                RedirectService.envInt("SERVER_BACKLOG", 1024));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(graceMillis), "redirect-server-shutdown"));
+        server.start();
+        Log.info("Redirect server listening on port " + port);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop(long graceMillis) {
+        Log.info("Stopping redirect server");
+        // HttpServer.stop espera los exchanges en curso como maximo el plazo dado, en segundos
+        server.stop((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(graceMillis)));
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(graceMillis, TimeUnit.MILLISECONDS)) {
+                Log.warn("Requests still running after " + graceMillis + " ms", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        service.close(graceMillis);
+        Log.info("Redirect server stopped");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (HEALTH_PATH.equals(path)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            String code = path == null || path.length() <= 1 ? null : path.substring(1);
+            RedirectResponse response = service.handle(exchange.getRequestMethod(), code,
+                    requestId(exchange), NO_DEADLINE);
+
+            Headers headers = exchange.getResponseHeaders();
+            for (Map.Entry<String, String> header : ResponseRenderer.headers(response).entrySet()) {
+                headers.set(header.getKey(), header.getValue());
+            }
+
+            // HttpServer no admite cuerpo en HEAD: -1 manda solo los headers
+            String body = ResponseRenderer.body(response);
+            if (body.isEmpty() || "HEAD".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(response.statusCode(), -1);
+                return;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(response.statusCode(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // El id del balanceador si viene (ALB pone X-Amzn-Trace-Id), para cruzar los logs
+    private String requestId(HttpExchange exchange) {
+        String traceId = exchange.getRequestHeaders().getFirst("X-Amzn-Trace-Id");
+        if (traceId != null) {
+            return traceId;
+        }
+        String requestId = exchange.getRequestHeaders().getFirst("X-Request-Id");
+        return requestId != null ? requestId : Long.toString(requestIds.incrementAndGet());
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() existe desde Java 21 y el proyecto compila con 17.
+    // Sin hilos virtuales: un pool fijo de platformThreads hilos, o uno que crece si es 0.
+    static ExecutorService requestExecutor(int platformThreads) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            Log.info("Serving requests on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            if (platformThreads > 0) {
+                Log.info("Virtual threads not available, serving requests on " + platformThreads + " threads");
+                return Executors.newFixedThreadPool(platformThreads);
+            }
+            Log.info("Virtual threads not available, serving requests on a cached thread pool");
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
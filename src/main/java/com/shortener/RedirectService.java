@@ -0,0 +1,448 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+// Logica de redireccion independiente del transporte: caches, lookup, registro de visitas, logs y
+// metricas. La usan los handlers de Lambda (RedirectHandler, StreamRedirectHandler) y RedirectServer.
+public class RedirectService {
+
+    static final String PRIMING_CODE = "__priming__";
+    private static final LongSupplier NO_DEADLINE = () -> Long.MAX_VALUE;
+
+    private final RedirectStore redirectStore;
+    private final EdgeCodeTable edgeTable;
+    private final VisitRecorder visitRecorder;
+    private final AsyncVisitRecorder asyncVisitRecorder;
+    private final long asyncVisitWaitMillis;
+    private final VisitBuffer visitBuffer;
+    private final TtlCache<String, RedirectResponse> urlCache;
+    private final TtlCache<String, Boolean> missCache;
+    private final BloomFilter knownCodes;
+    private final MetricsEmitter metricsEmitter;
+    private final LatencyRecorder latencyRecorder;
+    private final AtomicBoolean coldStart = new AtomicBoolean(true);
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final boolean server;
+
+    // Para los handlers de Lambda, que atienden un request a la vez por contenedor
+    public RedirectService() {
+        this(false);
+    }
+
+    // server: RedirectServer y NioRedirectServer, con muchos hilos sobre las mismas caches
+    public RedirectService(boolean server) {
+        this.server = server;
+        String engine = envString("STORE_ENGINE", "dynamodb").toLowerCase(Locale.ROOT);
+        ZoneId timeZone = ZoneId.of(envString("VISIT_TIME_ZONE", "America/Bogota"));
+        List<VisitGranularity> granularities = VisitGranularity.parse(System.getenv("VISIT_GRANULARITIES"));
+        RedirectStore store;
+        switch (engine) {
+            case "dynamodb" -> {
+                DynamoDbClient dynamoDbClient = DynamoDbClients.create();
+                String tableName = System.getenv("TABLE_NAME");
+                store = new DynamoDbRedirectStore(dynamoDbClient, tableName);
+                this.visitRecorder = new DynamoDbVisitRecorder(dynamoDbClient, tableName, timeZone, granularities,
+                        envInt("VISIT_SHARDS", 1),
+                        new HotCodeDetector(
+                                envInt("VISIT_SHARD_PROMOTE_WRITES_PER_SEC", 50),
+                                envInt("VISIT_SHARD_HOLD_SECONDS", 600) * 1000L,
+                                envInt("HOT_CODE_MAX_TRACKED", 10000)),
+                        createTimeSeriesWriter(dynamoDbClient, System.getenv("VISITS_TABLE_NAME")),
+                        "compact".equalsIgnoreCase(System.getenv("VISITS_HISTOGRAM")) ?
+                                new VisitHistogramCompactor(dynamoDbClient, tableName,
+                                        envInt("VISITS_HISTOGRAM_MAX_TRACKED", 10000),
+                                        envDouble("VISITS_HISTOGRAM_SAMPLE_RATE", 0.1)) : null);
+            }
+            case "memory" -> {
+                String snapshot = System.getenv("STORE_SNAPSHOT");
+                store = snapshot == null || snapshot.isBlank() ? new InMemoryRedirectStore() :
+                        loadStore(() -> InMemoryRedirectStore.fromSnapshot(Path.of(snapshot)));
+                this.visitRecorder = new InMemoryVisitRecorder(timeZone, granularities);
+            }
+            case "file" -> {
+                Path snapshot = Path.of(envString("STORE_SNAPSHOT", "codes.tsv"));
+                store = loadStore(() -> new FileRedirectStore(snapshot,
+                        envInt("STORE_RELOAD_SECONDS", 5) * 1000L));
+                Path visitsLog = Path.of(envString("VISITS_LOG_PATH", "visits.tsv"));
+                this.visitRecorder = loadStore(() -> new FileVisitRecorder(visitsLog, timeZone,
+                        granularities.isEmpty() ? VisitGranularity.DAY : granularities.get(0)));
+            }
+            default -> throw new IllegalArgumentException("Unknown STORE_ENGINE: " + engine);
+        }
+        Log.info("Using " + engine + " store engine");
+        this.edgeTable = openEdgeTable(System.getenv("EDGE_TABLE_PATH"));
+        this.redirectStore = edgeTable == null ? store : new TieredRedirectStore(edgeTable, store);
+
+        String visitMode = System.getenv("VISIT_MODE");
+        // El cliente asincrono solo se crea si se usa, para no pagar su inicializacion en modo sync
+        boolean async = "async".equalsIgnoreCase(visitMode);
+        if (async && !(visitRecorder instanceof DynamoDbVisitRecorder)) {
+            Log.warn("VISIT_MODE=async requires the dynamodb store engine, recording visits synchronously", null);
+        }
+        this.asyncVisitRecorder = async && visitRecorder instanceof DynamoDbVisitRecorder dynamoDbVisitRecorder ?
+                new AsyncVisitRecorder(DynamoDbClients.createAsync(), dynamoDbVisitRecorder) : null;
+        this.asyncVisitWaitMillis = envInt("VISIT_ASYNC_WAIT_MS", 100);
+        this.visitBuffer = "buffered".equalsIgnoreCase(visitMode) ?
+                new VisitBuffer(visitRecorder,
+                        envInt("VISIT_FLUSH_INTERVAL_MS", 1000),
+                        envInt("VISIT_MAX_LOSS_MS", 5000),
+                        envInt("VISIT_FLUSH_MAX_KEYS", 1000)) : null;
+        int cacheConcurrency = server ? Runtime.getRuntime().availableProcessors() * 4 : 1;
+        this.urlCache = new TtlCache<>(
+                envInt("URL_CACHE_MAX_ENTRIES", 10000),
+                envInt("URL_CACHE_TTL_SECONDS", 60) * 1000L,
+                cacheConcurrency);
+        this.missCache = new TtlCache<>(
+                envInt("MISS_CACHE_MAX_ENTRIES", 10000),
+                envInt("MISS_CACHE_TTL_SECONDS", 30) * 1000L,
+                cacheConcurrency);
+        this.knownCodes = loadBloomFilter(System.getenv("BLOOM_FILTER_SNAPSHOT"));
+        this.metricsEmitter = "false".equalsIgnoreCase(System.getenv("METRICS_ENABLED")) ? null :
+                new MetricsEmitter(envString("METRICS_NAMESPACE", "RedirectService"),
+                        envInt("METRICS_FLUSH_EVERY", 1));
+        this.latencyRecorder = envInt("LATENCY_DUMP_INTERVAL_SECONDS", 60) <= 0 ? null :
+                new LatencyRecorder(envInt("LATENCY_DUMP_INTERVAL_SECONDS", 60) * 1000L);
+    }
+
+    // Antes de un snapshot de SnapStart: si las visitas pendientes quedaran en el snapshot, cada
+    // contenedor restaurado las volveria a escribir
+    public void flushVisits() {
+        if (visitBuffer != null) {
+            visitBuffer.flush();
+        }
+    }
+
+    public void markColdStart() {
+        coldStart.set(true);
+    }
+
+    // Carga las clases del SDK (marshallers, firma, cliente HTTP), resuelve credenciales y abre
+    // la conexion con un GetItem de un codigo que no existe. No registra visitas ni toca las caches
+    // ni ThreadLocalRandom, para que un snapshot no lleve estado que luego compartirian todos los
+    // contenedores restaurados.
+    public void prime() {
+        try {
+            lookupRedirect(PRIMING_CODE);
+        } catch (Exception e) {
+            Log.warn("Priming lookup failed", e);
+        }
+        Log.debug(() -> "Primed redirect service");
+    }
+
+    // Unico hook de apagado para los handlers de Lambda, que no tienen otro punto de cierre. Los
+    // servidores no lo usan: su propio hook detiene el servidor y despues llama a close().
+    public void closeOnShutdown(long timeoutMillis) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> close(timeoutMillis), "redirect-service-shutdown"));
+    }
+
+    // Escribe lo pendiente del pipeline de visitas y de metricas antes de terminar el proceso
+    public void close(long timeoutMillis) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (visitBuffer != null) {
+            visitBuffer.close();
+        }
+        if (asyncVisitRecorder != null) {
+            asyncVisitRecorder.awaitPending(timeoutMillis);
+        }
+        if (metricsEmitter != null) {
+            metricsEmitter.flush();
+        }
+        if (latencyRecorder != null) {
+            latencyRecorder.dumpIfDue();
+        }
+        visitRecorder.close();
+        redirectStore.close();
+    }
+
+    // remainingMillis acota la espera de la visita en modo async (tiempo restante de la invocacion)
+    public RedirectResponse handle(String method, String code, String requestId, LongSupplier remainingMillis) {
+        return handle(method, code, requestId, remainingMillis, false);
+    }
+
+    // Para el hilo del selector de NioRedirectServer: responde solo si no hace falta bloquear, es
+    // decir con la cache, la cache negativa, el filtro Bloom o la tabla de borde, y si la visita va
+    // al VisitBuffer (o no hay visita). Si el request necesita el almacen o escribir la visita
+    // devuelve null sin efectos ni logs, y el request se atiende completo con handle().
+    public RedirectResponse handleInline(String method, String code, String requestId) {
+        return handle(method, code, requestId, NO_DEADLINE, true);
+    }
+
+    private RedirectResponse handle(String method, String code, String requestId, LongSupplier remainingMillis,
+                                    boolean inline) {
+        RequestLog requestLog = new RequestLog(requestId);
+        // Un intento inline que no responde no consume el cold start: lo reporta handle()
+        boolean cold = inline ? coldStart.get() : coldStart.getAndSet(false);
+        RequestMetrics metrics = new RequestMetrics(cold);
+        RedirectResponse response = null;
+        try {
+            response = handle(method, code, remainingMillis, requestLog, metrics, inline);
+            if (response != null) {
+                requestLog.status(response.statusCode());
+            }
+            return response;
+        } finally {
+            if (response != null || !inline) {
+                if (inline && cold) {
+                    coldStart.set(false);
+                }
+                requestLog.emit();
+                if (metricsEmitter != null) {
+                    metricsEmitter.record(metrics, requestLog.status(), requestLog.cache());
+                }
+                if (latencyRecorder != null) {
+                    latencyRecorder.record(metrics);
+                    latencyRecorder.dumpIfDue();
+                }
+            }
+        }
+    }
+
+    private RedirectResponse handle(String method, String code, LongSupplier remainingMillis,
+                                    RequestLog requestLog, RequestMetrics metrics, boolean inline) {
+        try {
+            requestLog.method(method);
+
+            if ("OPTIONS".equalsIgnoreCase(method)) {
+                return RedirectResponse.OPTIONS;
+            }
+
+            // HEAD resuelve igual que GET pero no cuenta como visita: lo usan verificadores de
+            // enlaces y monitoreo
+            boolean head = "HEAD".equalsIgnoreCase(method);
+            if (method != null && !head && !"GET".equalsIgnoreCase(method)) {
+                return RedirectResponse.METHOD_NOT_ALLOWED;
+            }
+
+            requestLog.code(code);
+
+            if (code == null || code.trim().isEmpty()) {
+                return RedirectResponse.MISSING_CODE;
+            }
+
+            // Sin VisitBuffer la visita es una escritura bloqueante: va entera a un worker
+            if (inline && !head && visitBuffer == null) {
+                return null;
+            }
+
+            long mark = metrics.start();
+            RedirectResponse redirect = urlCache.get(code);
+
+            if (redirect != null) {
+                requestLog.cache("hit");
+            } else {
+                if (missCache.get(code) != null) {
+                    requestLog.cache("negative");
+                    metrics.record(RequestMetrics.Phase.LOOKUP, mark);
+                    return RedirectResponse.notFound(code);
+                }
+
+                if (knownCodes != null && !knownCodes.mightContain(code)) {
+                    requestLog.cache("bloom");
+                    metrics.record(RequestMetrics.Phase.LOOKUP, mark);
+                    return RedirectResponse.notFound(code);
+                }
+
+                if (inline) {
+                    RedirectTarget target = edgeTable == null ? null : edgeTable.find(code);
+                    if (target == null) {
+                        return null;
+                    }
+                    redirect = toRedirect(target);
+                } else {
+                    redirect = lookupRedirect(code);
+                }
+                requestLog.cache("miss");
+
+                if (redirect == null) {
+                    missCache.put(code, Boolean.TRUE);
+                    metrics.record(RequestMetrics.Phase.LOOKUP, mark);
+                    return RedirectResponse.notFound(code);
+                }
+
+                urlCache.put(code, redirect);
+            }
+
+            mark = metrics.record(RequestMetrics.Phase.LOOKUP, mark);
+            String location = redirect.location();
+            Log.debug(() -> "Redirecting " + code + " to: " + location);
+            if (head) {
+                return redirect;
+            }
+
+            CompletableFuture<Void> pendingVisit = null;
+            if (visitBuffer != null) {
+                visitBuffer.recordVisit(code);
+            } else if (asyncVisitRecorder != null) {
+                pendingVisit = asyncVisitRecorder.recordVisit(code);
+            } else {
+                recordVisit(code, requestLog);
+            }
+            mark = metrics.record(RequestMetrics.Phase.VISIT, mark);
+
+            if (pendingVisit != null) {
+                awaitVisit(pendingVisit, code, remainingMillis, requestLog);
+            }
+            if (visitBuffer != null) {
+                flushVisitBuffer(requestLog, inline);
+            }
+            metrics.record(RequestMetrics.Phase.VISIT, mark);
+
+            return redirect;
+
+        } catch (Exception e) {
+            requestLog.error("Error handling request", e);
+            return RedirectResponse.error(500, "Internal server error: " + e.getMessage());
+        }
+    }
+
+    private void recordVisit(String code, RequestLog requestLog) {
+        try {
+            visitRecorder.recordVisit(code);
+        } catch (Exception e) {
+            requestLog.error("Error recording visit", e);
+        }
+    }
+
+    // Espera el registro de la visita como maximo VISIT_ASYNC_WAIT_MS, sin pasarse del tiempo
+    // restante de la invocacion. Si no termina, la escritura sigue en vuelo y se completa
+    // cuando el contenedor vuelva a recibir trafico.
+    private void awaitVisit(CompletableFuture<Void> pendingVisit, String code, LongSupplier remainingMillis,
+                            RequestLog requestLog) {
+        long deadline = Math.min(asyncVisitWaitMillis, remainingMillis.getAsLong() - 50L);
+        try {
+            if (deadline > 0) {
+                pendingVisit.get(deadline, TimeUnit.MILLISECONDS);
+            } else if (!pendingVisit.isDone()) {
+                Log.debug(() -> "Visit for code still pending, no time left to wait: " + code);
+            }
+        } catch (TimeoutException e) {
+            Log.debug(() -> "Visit for code still pending after " + deadline + " ms: " + code);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            requestLog.error("Error recording visit", e.getCause());
+        }
+    }
+
+    // Solo en Lambda el request escribe el buffer atrasado. En los servidores el flush bloquearia a
+    // los requests concurrentes (y fijaria los hilos virtuales a su carrier): se le pasa al flusher
+    private void flushVisitBuffer(RequestLog requestLog, boolean inline) {
+        if (server || inline) {
+            visitBuffer.scheduleFlushIfStale();
+            return;
+        }
+        try {
+            if (visitBuffer.flushIfStale()) {
+                Log.debug(() -> "Flushed buffered visits");
+            }
+        } catch (Exception e) {
+            requestLog.error("Error flushing buffered visits", e);
+        }
+    }
+
+    // La URL se escapa una sola vez, al armar la redireccion que queda en la cache
+    private RedirectResponse lookupRedirect(String code) {
+        RedirectTarget target = redirectStore.find(code);
+        return target == null ? null : toRedirect(target);
+    }
+
+    private static RedirectResponse toRedirect(RedirectTarget target) {
+        return RedirectResponse.redirect(Urls.toLocation(target.originalUrl()), target.policy());
+    }
+
+    private interface StoreLoader<T> {
+        T load() throws IOException;
+    }
+
+    // Un archivo que no se puede abrir es un error de configuracion: el proceso no arranca
+    private static <T> T loadStore(StoreLoader<T> loader) {
+        try {
+            return loader.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // La tabla mapeada en memoria va delante del motor configurado; si no se puede abrir se sigue
+    // solo con el motor, como con el filtro Bloom
+    private static EdgeCodeTable openEdgeTable(String tablePath) {
+        if (tablePath == null || tablePath.isBlank()) {
+            return null;
+        }
+        try {
+            EdgeCodeTable table = EdgeCodeTable.open(Path.of(tablePath));
+            Log.info("Mapped edge code table with " + table.size() + " codes: " + tablePath);
+            return table;
+        } catch (Exception e) {
+            Log.error("Error opening edge code table " + tablePath, e);
+            return null;
+        }
+    }
+
+    private static VisitTimeSeriesWriter createTimeSeriesWriter(DynamoDbClient dynamoDbClient, String visitsTableName) {
+        if (visitsTableName == null || visitsTableName.isBlank()) {
+            return null;
+        }
+        return new VisitTimeSeriesWriter(dynamoDbClient, visitsTableName);
+    }
+
+    private static BloomFilter loadBloomFilter(String snapshotPath) {
+        if (snapshotPath == null || snapshotPath.isBlank()) {
+            return null;
+        }
+        try {
+            BloomFilter filter = BloomFilter.fromSnapshot(Path.of(snapshotPath),
+                    envDouble("BLOOM_FILTER_FPP", 0.01));
+            Log.info("Loaded bloom filter from snapshot: " + snapshotPath);
+            return filter;
+        } catch (Exception e) {
+            // Sin filtro todas las busquedas van a DynamoDB, que es el comportamiento seguro
+            Log.error("Error loading bloom filter snapshot " + snapshotPath, e);
+            return null;
+        }
+    }
+
+    static String envString(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    static int envInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static double envDouble(String name, double defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.shortener;
+
+// Origen de las redirecciones. find() devuelve null si el codigo no existe; las caches y el filtro
+// Bloom de RedirectService van por delante de cualquier implementacion.
+public interface RedirectStore {
+
+    RedirectTarget find(String code);
+
+    default void close() {
+    }
+}
@@ -0,0 +1,8 @@
+package com.shortener;
+
+public record RedirectTarget(String originalUrl, RedirectPolicy policy) {
+
+    public RedirectTarget(String originalUrl) {
+        this(originalUrl, RedirectPolicy.DEFAULT);
+    }
+}
@@ -0,0 +1,79 @@
+package com.shortener;
+
+// Acumula los datos de un request y los emite en una sola linea JSON al final. Los requests
+// sin error solo se formatean si pasan el muestreo, asi que el camino normal no arma strings.
+public final class RequestLog {
+
+    private final long startNanos = System.nanoTime();
+    private final String requestId;
+    private String method;
+    private String code;
+    private String cache;
+    private int status;
+    private Throwable error;
+    private String errorMessage;
+
+    public RequestLog(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public RequestLog method(String method) {
+        this.method = method;
+        return this;
+    }
+
+    public RequestLog code(String code) {
+        this.code = code;
+        return this;
+    }
+
+    // hit, miss, negative o bloom
+    public RequestLog cache(String cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public RequestLog status(int status) {
+        this.status = status;
+        return this;
+    }
+
+    public RequestLog error(String message, Throwable error) {
+        this.errorMessage = message;
+        this.error = error;
+        return this;
+    }
+
+    int status() {
+        return status;
+    }
+
+    String cache() {
+        return cache;
+    }
+
+    public void emit() {
+        Log.Level level = status >= 500 ? Log.Level.ERROR : error != null ? Log.Level.WARN : Log.Level.INFO;
+        if (!Log.isEnabled(level) || (level == Log.Level.INFO && !Log.sampled())) {
+            return;
+        }
+
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"level\":\"").append(level).append("\",\"requestId\":");
+        Json.appendString(json, requestId);
+        json.append(",\"method\":");
+        Json.appendString(json, method);
+        json.append(",\"code\":");
+        Json.appendString(json, code);
+        json.append(",\"status\":").append(status);
+        json.append(",\"cache\":");
+        Json.appendString(json, cache);
+        json.append(",\"durationMs\":").append((System.nanoTime() - startNanos) / 1_000_000.0);
+        if (errorMessage != null) {
+            json.append(",\"message\":");
+            Json.appendString(json, errorMessage);
+        }
+        Log.appendError(json, error);
+        System.out.println(json.append('}'));
+    }
+}
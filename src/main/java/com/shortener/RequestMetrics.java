@@ -0,0 +1,57 @@
+package com.shortener;
+
+import java.util.Arrays;
+
+// Tiempos por fase de un request, medidos con System.nanoTime (monotonico)
+public final class RequestMetrics {
+
+    // No hay fase de respuesta: cada transporte la renderiza despues de handle(), fuera de lo medido
+    public enum Phase {
+        LOOKUP("LookupLatency"),
+        VISIT("VisitLatency");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String metricName() {
+            return metricName;
+        }
+    }
+
+    private final long startNanos = System.nanoTime();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final boolean coldStart;
+
+    public RequestMetrics(boolean coldStart) {
+        this.coldStart = coldStart;
+        Arrays.fill(phaseNanos, -1L);
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    // Registra el tiempo desde since y devuelve el instante actual para encadenar fases
+    public long record(Phase phase, long since) {
+        long now = System.nanoTime();
+        long previous = phaseNanos[phase.ordinal()];
+        phaseNanos[phase.ordinal()] = (previous < 0 ? 0 : previous) + (now - since);
+        return now;
+    }
+
+    // -1 si la fase no se ejecuto en este request
+    public long phaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long totalNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public boolean coldStart() {
+        return coldStart;
+    }
+}
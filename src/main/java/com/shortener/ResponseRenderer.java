@@ -0,0 +1,297 @@
+package com.shortener;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Convierte RedirectResponse en la respuesta de API Gateway con bloques armados una sola vez:
+// los headers son mapas inmutables compartidos entre requests y el JSON del handler de streams es
+// una plantilla de bytes en la que solo se copia Location. Las redirecciones tienen un bloque y una
+// plantilla por RedirectPolicy (codigo 301/302 y Cache-Control). NioRedirectServer usa las mismas
+// plantillas en HTTP/1.1. Solo los errores arman strings.
+final class ResponseRenderer {
+
+    static final Map<String, String> CORS_HEADERS = Map.of(
+            "Access-Control-Allow-Origin", "*",
+            "Access-Control-Allow-Methods", "GET, HEAD, OPTIONS",
+            "Access-Control-Allow-Headers", "Content-Type, X-Amz-Date, Authorization, X-Api-Key, X-Amz-Security-Token, X-Amz-User-Agent",
+            "Access-Control-Max-Age", "86400"
+    );
+    private static final Map<String, String> ERROR_HEADERS = extend(CORS_HEADERS, "Content-Type", "application/json");
+    // El 405 lleva Allow (RFC 9110)
+    private static final Map<String, String> NOT_ALLOWED_HEADERS = extend(ERROR_HEADERS, "Allow", "GET, HEAD, OPTIONS");
+    // Un bloque de headers y una plantilla por politica de redireccion; en la practica hay pocas
+    private static final int MAX_REDIRECT_TEMPLATES = 64;
+    private static final ConcurrentMap<RedirectPolicy, RedirectTemplate> REDIRECT_TEMPLATES = new ConcurrentHashMap<>();
+
+    private static final byte[] OPTIONS_JSON = ascii("{\"statusCode\":200,\"headers\":{"
+            + headerFields(CORS_HEADERS) + "},\"body\":\"\",\"isBase64Encoded\":false}");
+    private static final byte[] REDIRECT_SUFFIX = ascii("\"},\"body\":\"\",\"isBase64Encoded\":false}");
+    private static final byte[] ERROR_PREFIX = ascii("{\"statusCode\":");
+    private static final byte[] ERROR_HEADERS_JSON = ascii(",\"headers\":{" + headerFields(ERROR_HEADERS) + "},\"body\":");
+    private static final byte[] NOT_ALLOWED_HEADERS_JSON = ascii(",\"headers\":{" + headerFields(NOT_ALLOWED_HEADERS) + "},\"body\":");
+    private static final byte[] ERROR_SUFFIX = ascii(",\"isBase64Encoded\":false}");
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] HTTP_OPTIONS = ascii(statusLine(200) + headerLines(CORS_HEADERS) + "Content-Length: 0\r\n");
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    static {
+        REDIRECT_TEMPLATES.put(RedirectPolicy.DEFAULT, new RedirectTemplate(RedirectPolicy.DEFAULT));
+    }
+
+    private ResponseRenderer() {
+    }
+
+    static APIGatewayV2HTTPResponse toApiGateway(RedirectResponse response) {
+        return APIGatewayV2HTTPResponse.builder()
+                .withStatusCode(response.statusCode())
+                .withHeaders(headers(response))
+                .withBody(body(response))
+                .build();
+    }
+
+    // Headers de la respuesta: un bloque compartido, mas Location en las redirecciones
+    static Map<String, String> headers(RedirectResponse response) {
+        if (response.isRedirect()) {
+            return new ExtendedHeaders(template(response.policy()).headers, "Location", response.location());
+        }
+        return response.errorMessage() == null ? CORS_HEADERS : errorHeaders(response);
+    }
+
+    static String body(RedirectResponse response) {
+        return response.errorMessage() == null ? "" : errorBody(response.errorMessage());
+    }
+
+    // JSON de la respuesta de API Gateway para RequestStreamHandler
+    static void writeJson(RedirectResponse response, OutputStream out) throws IOException {
+        if (response.isRedirect()) {
+            // Location es ASCII sin comillas ni barras (Urls.toLocation): se copia byte a byte
+            String location = response.location();
+            byte[] prefix = template(response.policy()).jsonPrefix;
+            byte[] buffer = scratch(prefix.length + location.length() + REDIRECT_SUFFIX.length);
+            System.arraycopy(prefix, 0, buffer, 0, prefix.length);
+            int length = prefix.length;
+            for (int i = 0; i < location.length(); i++) {
+                buffer[length++] = (byte) location.charAt(i);
+            }
+            System.arraycopy(REDIRECT_SUFFIX, 0, buffer, length, REDIRECT_SUFFIX.length);
+            out.write(buffer, 0, length + REDIRECT_SUFFIX.length);
+        } else if (response.errorMessage() == null) {
+            out.write(OPTIONS_JSON);
+        } else {
+            // El body es un string JSON que a su vez contiene JSON: el mensaje se escapa dos veces
+            StringBuilder body = Json.appendString(new StringBuilder(128), errorBody(response.errorMessage()));
+            out.write(ERROR_PREFIX);
+            out.write(ascii(Integer.toString(response.statusCode())));
+            out.write(response.statusCode() == 405 ? NOT_ALLOWED_HEADERS_JSON : ERROR_HEADERS_JSON);
+            out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(ERROR_SUFFIX);
+        }
+    }
+
+    // Respuesta HTTP/1.1 para NioRedirectServer. connectionHeader ("Connection: ...\r\n" o vacio) va
+    // al final de los headers. Devuelve false sin escribir nada si la respuesta no cabe en out.
+    static boolean writeHttp(RedirectResponse response, byte[] connectionHeader, boolean head, ByteBuffer out) {
+        if (response.isRedirect()) {
+            byte[] prefix = template(response.policy()).httpPrefix;
+            String location = response.location();
+            if (out.remaining() < prefix.length + location.length() + connectionHeader.length + 2 * CRLF.length) {
+                return false;
+            }
+            out.put(prefix);
+            for (int i = 0; i < location.length(); i++) {
+                out.put((byte) location.charAt(i));
+            }
+            out.put(CRLF).put(connectionHeader).put(CRLF);
+            return true;
+        }
+
+        if (response.errorMessage() == null) {
+            if (out.remaining() < HTTP_OPTIONS.length + connectionHeader.length + CRLF.length) {
+                return false;
+            }
+            out.put(HTTP_OPTIONS).put(connectionHeader).put(CRLF);
+            return true;
+        }
+
+        byte[] body = errorBody(response.errorMessage()).getBytes(StandardCharsets.UTF_8);
+        byte[] headers = ascii(statusLine(response.statusCode()) + headerLines(errorHeaders(response))
+                + "Content-Length: " + body.length + "\r\n");
+        if (out.remaining() < headers.length + connectionHeader.length + CRLF.length + (head ? 0 : body.length)) {
+            return false;
+        }
+        out.put(headers).put(connectionHeader).put(CRLF);
+        if (!head) {
+            out.put(body);
+        }
+        return true;
+    }
+
+    private static Map<String, String> errorHeaders(RedirectResponse response) {
+        return response.statusCode() == 405 ? NOT_ALLOWED_HEADERS : ERROR_HEADERS;
+    }
+
+    private static String errorBody(String message) {
+        return Json.appendString(new StringBuilder(message.length() + 16).append("{\"error\":"), message)
+                .append('}')
+                .toString();
+    }
+
+    private static RedirectTemplate template(RedirectPolicy policy) {
+        RedirectTemplate template = REDIRECT_TEMPLATES.get(policy);
+        if (template == null) {
+            template = new RedirectTemplate(policy);
+            if (REDIRECT_TEMPLATES.size() < MAX_REDIRECT_TEMPLATES) {
+                REDIRECT_TEMPLATES.putIfAbsent(policy, template);
+            }
+        }
+        return template;
+    }
+
+    private static byte[] scratch(int size) {
+        byte[] buffer = SCRATCH.get();
+        if (buffer.length < size) {
+            buffer = new byte[Math.max(size, buffer.length * 2)];
+            SCRATCH.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static Map<String, String> extend(Map<String, String> base, String name, String value) {
+        Map<String, String> headers = new HashMap<>(base);
+        headers.put(name, value);
+        return Map.copyOf(headers);
+    }
+
+    private static String headerFields(Map<String, String> headers) {
+        StringBuilder json = new StringBuilder(256);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (json.length() > 0) {
+                json.append(',');
+            }
+            Json.appendString(json, header.getKey()).append(':');
+            Json.appendString(json, header.getValue());
+        }
+        return json.toString();
+    }
+
+    private static String headerLines(Map<String, String> headers) {
+        StringBuilder lines = new StringBuilder(256);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            lines.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        return lines.toString();
+    }
+
+    private static String statusLine(int statusCode) {
+        String reason = switch (statusCode) {
+            case 200 -> "OK";
+            case 301 -> "Moved Permanently";
+            case 302 -> "Found";
+            case 400 -> "Bad Request";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 503 -> "Service Unavailable";
+            default -> "Status " + statusCode;
+        };
+        return "HTTP/1.1 " + statusCode + " " + reason + "\r\n";
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Headers y comienzo de la respuesta (JSON de API Gateway y HTTP/1.1) de una redireccion con su
+    // codigo y Cache-Control, hasta el valor de Location
+    private static final class RedirectTemplate {
+        private final Map<String, String> headers;
+        private final byte[] jsonPrefix;
+        private final byte[] httpPrefix;
+
+        private RedirectTemplate(RedirectPolicy policy) {
+            this.headers = extend(CORS_HEADERS, "Cache-Control", policy.cacheControl());
+            this.jsonPrefix = ascii("{\"statusCode\":" + policy.statusCode() + ",\"headers\":{"
+                    + headerFields(headers) + ",\"Location\":\"");
+            this.httpPrefix = ascii(statusLine(policy.statusCode()) + headerLines(headers)
+                    + "Content-Length: 0\r\nLocation: ");
+        }
+    }
+
+    // Un bloque de headers compartido mas un header propio del request, sin copiar el bloque
+    private static final class ExtendedHeaders extends AbstractMap<String, String> {
+        private final Map<String, String> base;
+        private final Map.Entry<String, String> extra;
+
+        private ExtendedHeaders(Map<String, String> base, String name, String value) {
+            this.base = base;
+            this.extra = Map.entry(name, value);
+        }
+
+        @Override
+        public String get(Object key) {
+            return extra.getKey().equals(key) ? extra.getValue() : base.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return extra.getKey().equals(key) || base.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return base.size() + 1;
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    Iterator<Map.Entry<String, String>> baseEntries = base.entrySet().iterator();
+                    return new Iterator<>() {
+                        private boolean extraReturned;
+
+                        @Override
+                        public boolean hasNext() {
+                            return baseEntries.hasNext() || !extraReturned;
+                        }
+
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            if (baseEntries.hasNext()) {
+                                return baseEntries.next();
+                            }
+                            if (extraReturned) {
+                                throw new NoSuchElementException();
+                            }
+                            extraReturned = true;
+                            return extra;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return base.size() + 1;
+                }
+            };
+        }
+    }
+}
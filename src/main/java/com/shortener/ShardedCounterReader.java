@@ -0,0 +1,75 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Suma los contadores del item base y de sus shards "code#0".."code#(n-1)". shardCount debe
+// ser el mayor VISIT_SHARDS que se haya usado, porque un codigo puede haber sido promovido
+// en cualquier contenedor.
+public class ShardedCounterReader {
+
+    private static final int MAX_BATCH_KEYS = 100;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final int shardCount;
+
+    public ShardedCounterReader(DynamoDbClient dynamoDbClient, String tableName, int shardCount) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.shardCount = shardCount;
+    }
+
+    public VisitTotals read(String code) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(shardCount + 1);
+        keys.add(Map.of("code", AttributeValue.builder().s(code).build()));
+        for (int shard = 0; shard < shardCount; shard++) {
+            keys.add(Map.of("code", AttributeValue.builder().s(DynamoDbVisitRecorder.shardKey(code, shard)).build()));
+        }
+
+        long totalVisits = 0;
+        Map<String, Long> visitsByDate = new TreeMap<>();
+
+        for (int from = 0; from < keys.size(); from += MAX_BATCH_KEYS) {
+            Map<String, KeysAndAttributes> pending = Map.of(tableName, KeysAndAttributes.builder()
+                    .keys(keys.subList(from, Math.min(keys.size(), from + MAX_BATCH_KEYS)))
+                    .projectionExpression("totalVisits, visitsByDate, visitsHistogram")
+                    .build());
+
+            while (!pending.isEmpty()) {
+                BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+                        .requestItems(pending)
+                        .build());
+
+                for (Map<String, AttributeValue> item : response.responses().getOrDefault(tableName, List.of())) {
+                    if (item.containsKey("totalVisits")) {
+                        totalVisits += Long.parseLong(item.get("totalVisits").n());
+                    }
+                    if (item.containsKey("visitsByDate")) {
+                        item.get("visitsByDate").m().forEach((day, visits) ->
+                                visitsByDate.merge(day, Long.parseLong(visits.n()), Long::sum));
+                    }
+                    if (item.containsKey("visitsHistogram")) {
+                        VisitHistogramCodec.toVisitsByDate(item.get("visitsHistogram").b().asByteArrayUnsafe())
+                                .forEach((day, visits) -> visitsByDate.merge(day, visits, Long::sum));
+                    }
+                }
+
+                pending = response.unprocessedKeys();
+            }
+        }
+
+        return new VisitTotals(totalVisits, visitsByDate);
+    }
+
+    public record VisitTotals(long totalVisits, Map<String, Long> visitsByDate) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.shortener;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Alternativa a RedirectHandler sin el binding de Jackson del runtime: del evento solo se leen el
+// metodo y el codigo (ApiGatewayEventScanner) y la respuesta sale de las plantillas de bytes de
+// ResponseRenderer.
+// Handler: com.shortener.StreamRedirectHandler::handleRequest
+public class StreamRedirectHandler implements RequestStreamHandler {
+
+    private final RedirectHandler handler;
+
+    public StreamRedirectHandler() {
+        this(new RedirectHandler());
+    }
+
+    StreamRedirectHandler(RedirectHandler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+        byte[] event = input.readAllBytes();
+        Log.debug(() -> "Received event: " + new String(event, StandardCharsets.UTF_8));
+
+        ApiGatewayEventScanner.Fields fields = ApiGatewayEventScanner.scan(event);
+        RedirectResponse response = handler.handleRequest(fields.method(), fields.code(), context);
+        ResponseRenderer.writeJson(response, output);
+    }
+}
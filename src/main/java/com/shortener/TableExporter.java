@@ -0,0 +1,371 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Exporta la tabla de codigos a un snapshot ordenado por codigo (formato CodeSnapshot) con un Scan
+// paralelo, para generar el filtro Bloom, la tabla de borde o los almacenes locales:
+//   TABLE_NAME=... java -cp redirect-handler-all.jar com.shortener.TableExporter codes.tsv.gz
+// Cada segmento (Segment/TotalSegments) se recorre en una tarea de un ForkJoinPool y escribe sus
+// items a un archivo propio en <salida>.parts; al terminar el segmento se ordena en memoria y el
+// snapshot sale de mezclar los segmentos ordenados. Despues de cada pagina se guardan el
+// LastEvaluatedKey del segmento y el largo de su archivo: si la exportacion se interrumpe, volver a
+// ejecutarla con la misma salida continua cada segmento desde su ultima pagina.
+public final class TableExporter {
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final int totalSegments;
+    private final int pageLimit;
+    private final Path output;
+    private final Path workDir;
+    private final LongAdder exportedItems = new LongAdder();
+    private final LongAdder scannedItems = new LongAdder();
+    private final LongAdder skippedItems = new LongAdder();
+    private final DoubleAdder capacityUnits = new DoubleAdder();
+    private final AtomicLong nextProgressAt = new AtomicLong();
+    private long startedAt;
+
+    public TableExporter(DynamoDbClient dynamoDbClient, String tableName, int totalSegments, int pageLimit, Path output) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.totalSegments = totalSegments;
+        this.pageLimit = pageLimit;
+        this.output = output;
+        this.workDir = output.resolveSibling(output.getFileName() + ".parts");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path output = Path.of(args.length > 0 ? args[0] : "codes.tsv.gz");
+        int processors = Runtime.getRuntime().availableProcessors();
+        int segments = Math.max(1, RedirectService.envInt("EXPORT_SEGMENTS", processors * 4));
+        // Las tareas pasan casi todo el tiempo esperando a DynamoDB: mas tareas que CPUs
+        int parallelism = Math.max(1, RedirectService.envInt("EXPORT_PARALLELISM", Math.min(segments, processors * 4)));
+
+        try (DynamoDbClient dynamoDbClient = DynamoDbClients.create()) {
+            new TableExporter(dynamoDbClient, System.getenv("TABLE_NAME"), segments,
+                    RedirectService.envInt("EXPORT_PAGE_LIMIT", 0), output).export(parallelism);
+        }
+    }
+
+    public void export(int parallelism) throws IOException, InterruptedException {
+        Files.createDirectories(workDir);
+        checkManifest();
+        startedAt = System.nanoTime();
+        nextProgressAt.set(startedAt + PROGRESS_INTERVAL_NANOS);
+
+        List<Callable<Void>> segments = new ArrayList<>();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            int current = segment;
+            segments.add(() -> {
+                exportSegment(current);
+                return null;
+            });
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Future<Void> result : pool.invokeAll(segments)) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            // Los segmentos terminados y los checkpoints quedan en disco para el reintento
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException("Error exporting " + tableName, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long merged = merge();
+        report("Export finished", System.nanoTime());
+        Log.info("Wrote " + merged + " codes to " + output);
+        deleteWorkDir();
+    }
+
+    private void exportSegment(int segment) throws IOException {
+        Path checkpointPath = workDir.resolve("segment-" + segment + ".checkpoint");
+        Path data = workDir.resolve("segment-" + segment + ".tsv");
+        Path sorted = workDir.resolve("segment-" + segment + ".sorted");
+        Properties checkpoint = readProperties(checkpointPath);
+        if ("true".equals(checkpoint.getProperty("done"))) {
+            return;
+        }
+
+        if (!"true".equals(checkpoint.getProperty("scanned"))) {
+            scanSegment(segment, data, checkpointPath, checkpoint);
+        }
+
+        sortSegment(data, sorted);
+        Properties done = new Properties();
+        done.setProperty("done", "true");
+        writeProperties(checkpointPath, done);
+        Files.deleteIfExists(data);
+    }
+
+    // Lo escrito despues del ultimo checkpoint se descarta (truncate) y se vuelve a leer desde
+    // el LastEvaluatedKey guardado, asi que ningun item queda duplicado en el snapshot
+    private void scanSegment(int segment, Path data, Path checkpointPath, Properties checkpoint) throws IOException {
+        long offset = Long.parseLong(checkpoint.getProperty("offset", "0"));
+        String lastKey = checkpoint.getProperty("lastKey");
+        Map<String, AttributeValue> startKey = lastKey == null ? null :
+                Map.of("code", AttributeValue.builder().s(lastKey).build());
+        if (startKey != null) {
+            Log.info("Resuming segment " + segment + " after code " + lastKey);
+        }
+
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(offset);
+            channel.position(offset);
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), 64 * 1024);
+
+            do {
+                ScanResponse response = dynamoDbClient.scan(scanRequest(segment, startKey));
+                if (response.hasItems()) {
+                    for (Map<String, AttributeValue> item : response.items()) {
+                        writeItem(writer, item);
+                    }
+                }
+                if (response.scannedCount() != null) {
+                    scannedItems.add(response.scannedCount());
+                }
+                if (response.consumedCapacity() != null && response.consumedCapacity().capacityUnits() != null) {
+                    capacityUnits.add(response.consumedCapacity().capacityUnits());
+                }
+
+                writer.flush();
+                channel.force(false);
+                startKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+
+                Properties progress = new Properties();
+                progress.setProperty("offset", Long.toString(channel.position()));
+                if (startKey != null) {
+                    progress.setProperty("lastKey", startKey.get("code").s());
+                } else {
+                    progress.setProperty("scanned", "true");
+                }
+                writeProperties(checkpointPath, progress);
+                reportIfDue();
+            } while (startKey != null);
+        }
+    }
+
+    private ScanRequest scanRequest(int segment, Map<String, AttributeValue> startKey) {
+        ScanRequest.Builder request = ScanRequest.builder()
+                .tableName(tableName)
+                .segment(segment)
+                .totalSegments(totalSegments)
+                .projectionExpression("#code, #url, #type, #maxAge, #scope")
+                .expressionAttributeNames(Map.of("#code", "code", "#url", "originalUrl",
+                        "#type", RedirectPolicy.TYPE_ATTRIBUTE, "#maxAge", RedirectPolicy.MAX_AGE_ATTRIBUTE,
+                        "#scope", RedirectPolicy.SCOPE_ATTRIBUTE))
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .exclusiveStartKey(startKey);
+        if (pageLimit > 0) {
+            request.limit(pageLimit);
+        }
+        return request.build();
+    }
+
+    // Solo los items de redireccion: los shards de visitas ("code#n") no tienen originalUrl. Una
+    // URL con tab o salto de linea romperia el formato de lineas del snapshot.
+    private void writeItem(Writer writer, Map<String, AttributeValue> item) throws IOException {
+        AttributeValue code = item.get("code");
+        AttributeValue url = item.get("originalUrl");
+        if (code == null || code.s() == null || url == null || url.s() == null) {
+            skippedItems.increment();
+            return;
+        }
+        if (hasLineBreakOrTab(code.s()) || hasLineBreakOrTab(url.s())) {
+            Log.warn("Skipping code with a tab or line break: " + code.s(), null);
+            skippedItems.increment();
+            return;
+        }
+        CodeSnapshot.write(writer, code.s(), new RedirectTarget(url.s(), RedirectPolicy.fromItem(item)));
+        exportedItems.increment();
+    }
+
+    private static boolean hasLineBreakOrTab(String value) {
+        return value.indexOf('\t') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+    }
+
+    // Cada segmento tiene ~1/totalSegments de la tabla; EXPORT_SEGMENTS debe ser tal que un
+    // segmento quepa en memoria. El tab ordena antes que cualquier caracter imprimible, asi que
+    // ordenar las lineas completas es ordenar por codigo.
+    private static void sortSegment(Path data, Path sorted) throws IOException {
+        List<String> lines;
+        try (Stream<String> stream = Files.lines(data, StandardCharsets.UTF_8)) {
+            lines = stream.sorted().toList();
+        }
+        Files.write(sorted, lines, StandardCharsets.UTF_8);
+    }
+
+    // Mezcla de k vias de los segmentos ordenados al archivo de salida (gzip si termina en .gz)
+    private long merge() throws IOException {
+        Path temporary = output.resolveSibling(output.getFileName() + ".tmp");
+        PriorityQueue<SegmentReader> queue = new PriorityQueue<>(Comparator.comparing(SegmentReader::line));
+        long lines = 0;
+        try {
+            for (int segment = 0; segment < totalSegments; segment++) {
+                SegmentReader reader = new SegmentReader(workDir.resolve("segment-" + segment + ".sorted"));
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+
+            OutputStream out = Files.newOutputStream(temporary);
+            if (output.getFileName().toString().endsWith(".gz")) {
+                out = new GZIPOutputStream(out, 64 * 1024);
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024)) {
+                while (!queue.isEmpty()) {
+                    SegmentReader reader = queue.poll();
+                    writer.write(reader.line());
+                    writer.write('\n');
+                    lines++;
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+            }
+        } finally {
+            for (SegmentReader reader : queue) {
+                reader.close();
+            }
+        }
+        Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return lines;
+    }
+
+    // Un reintento con otra tabla u otro numero de segmentos no puede reutilizar los checkpoints
+    private void checkManifest() throws IOException {
+        Path manifestPath = workDir.resolve("export.properties");
+        Properties manifest = readProperties(manifestPath);
+        if (manifest.isEmpty()) {
+            manifest.setProperty("tableName", tableName);
+            manifest.setProperty("totalSegments", Integer.toString(totalSegments));
+            writeProperties(manifestPath, manifest);
+            return;
+        }
+        if (!tableName.equals(manifest.getProperty("tableName"))
+                || !Integer.toString(totalSegments).equals(manifest.getProperty("totalSegments"))) {
+            throw new IllegalStateException("Export in " + workDir + " was started for table "
+                    + manifest.getProperty("tableName") + " with " + manifest.getProperty("totalSegments")
+                    + " segments; delete it to start over");
+        }
+        Log.info("Resuming export from " + workDir);
+    }
+
+    private void reportIfDue() {
+        long now = System.nanoTime();
+        long due = nextProgressAt.get();
+        if (now - due >= 0 && nextProgressAt.compareAndSet(due, now + PROGRESS_INTERVAL_NANOS)) {
+            report("Export progress", now);
+        }
+    }
+
+    // Items y capacidad de esta ejecucion; los segmentos ya terminados en una anterior no cuentan
+    private void report(String title, long now) {
+        double seconds = Math.max(1e-3, (now - startedAt) / 1e9);
+        long exported = exportedItems.sum();
+        double units = capacityUnits.sum();
+        Log.info(String.format("%s: %d items exported, %d scanned, %d skipped in %.1f s (%.0f items/s), "
+                        + "%.1f read capacity units (%.1f RCU/s)",
+                title, exported, scannedItems.sum(), skippedItems.sum(), seconds, exported / seconds,
+                units, units / seconds));
+    }
+
+    private void deleteWorkDir() throws IOException {
+        try (Stream<Path> files = Files.list(workDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(workDir);
+    }
+
+    private static Properties readProperties(Path path) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+            }
+        }
+        return properties;
+    }
+
+    // Se escribe a un temporal y se mueve: un corte a mitad de la escritura deja el checkpoint anterior
+    private static void writeProperties(Path path, Properties properties) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            properties.store(out, null);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static final class SegmentReader implements AutoCloseable {
+
+        private final BufferedReader reader;
+        private String line;
+
+        SegmentReader(Path path) throws IOException {
+            this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        }
+
+        boolean advance() throws IOException {
+            line = reader.readLine();
+            return line != null;
+        }
+
+        String line() {
+            return line;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.shortener;
+
+// Consulta primero un almacen local (p. ej. EdgeCodeTable) y solo si el codigo no esta ahi va al
+// siguiente, asi los codigos creados despues de generar la tabla local se siguen resolviendo.
+public class TieredRedirectStore implements RedirectStore {
+
+    private final RedirectStore local;
+    private final RedirectStore fallback;
+
+    public TieredRedirectStore(RedirectStore local, RedirectStore fallback) {
+        this.local = local;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public RedirectTarget find(String code) {
+        RedirectTarget target = local.find(code);
+        return target != null ? target : fallback.find(code);
+    }
+
+    @Override
+    public void close() {
+        local.close();
+        fallback.close();
+    }
+}
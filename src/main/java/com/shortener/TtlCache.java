@@ -0,0 +1,143 @@
+package com.shortener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// LRU con TTL. Con concurrency > 1 las claves se reparten entre segmentos, cada uno con su propio
+// lock y maxEntries / segmentos entradas, para que los hilos de los servidores no se serialicen en
+// un solo LinkedHashMap; el orden LRU pasa a ser por segmento. En Lambda basta un segmento.
+public class TtlCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    public TtlCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, 1);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TtlCache(int maxEntries, long ttlMillis, int concurrency) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        // Potencia de 2, y nunca mas segmentos que entradas
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(concurrency, maxEntries)));
+        int segmentEntries = Math.max(1, (maxEntries + segmentCount - 1) / segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentEntries);
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && ttlNanos > 0;
+    }
+
+    public V get(K key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    public void put(K key, V value) {
+        if (!isEnabled()) {
+            return;
+        }
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            segment.entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    // get + put atomico: dos hilos que piden la misma clave reciben el mismo valor
+    public V getOrCreate(K key, Supplier<V> factory) {
+        if (!isEnabled()) {
+            return factory.get();
+        }
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            V value = segment.get(key);
+            if (value == null) {
+                value = factory.get();
+                segment.entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+            }
+            return value;
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            segment.entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment<K, V> segment(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
+    }
+
+    private static final class Segment<K, V> {
+        private final LinkedHashMap<K, Entry<V>> entries;
+
+        private Segment(int maxEntries) {
+            // accessOrder = true: el LinkedHashMap mantiene el orden LRU por nosotros
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        // Llamar con el lock del segmento
+        private V get(K key) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            if (System.nanoTime() - entry.expiresAt > 0) {
+                entries.remove(key);
+                return null;
+            }
+
+            return entry.value;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.shortener;
+
+import java.nio.charset.StandardCharsets;
+
+public final class Urls {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final boolean[] ALLOWED = new boolean[128];
+
+    static {
+        // unreserved, reserved y '%' de RFC 3986: lo que ya es valido en una URI se deja igual
+        String allowed = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789"
+                + "-._~:/?#[]@!$&'()*+,;=%";
+        for (int i = 0; i < allowed.length(); i++) {
+            ALLOWED[allowed.charAt(i)] = true;
+        }
+    }
+
+    private Urls() {
+    }
+
+    // Valor seguro para el header Location: percent-encoding (UTF-8) de espacios, controles,
+    // comillas y no-ASCII. Sin CR/LF no se pueden inyectar headers, y como el resultado es ASCII
+    // sin comillas ni barras invertidas se copia tal cual dentro de un string JSON. Devuelve la
+    // misma instancia si no hay nada que escapar.
+    public static String toLocation(String url) {
+        int i = 0;
+        while (i < url.length() && isAllowed(url.charAt(i))) {
+            i++;
+        }
+        if (i == url.length()) {
+            return url;
+        }
+
+        StringBuilder out = new StringBuilder(url.length() + 16).append(url, 0, i);
+        for (; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (isAllowed(c)) {
+                out.append(c);
+                continue;
+            }
+            int end = Character.isHighSurrogate(c) && i + 1 < url.length() ? i + 2 : i + 1;
+            for (byte b : url.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            i = end - 1;
+        }
+        return out.toString();
+    }
+
+    private static boolean isAllowed(char c) {
+        return c < 128 && ALLOWED[c];
+    }
+}
@@ -0,0 +1,130 @@
+package com.shortener;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Acumula visitas por (codigo, cubeta) en memoria y las escribe con un UpdateItem por clave.
+// La cubeta es la de la granularidad mas fina; VisitRecorder deriva de ella las mas gruesas.
+// Lo que no se ha escrito se pierde si el proceso muere: maxLossMillis acota esa ventana.
+public class VisitBuffer {
+
+    private final VisitRecorder visitRecorder;
+    private final long maxLossNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<VisitKey, Long> counters = new ConcurrentHashMap<>();
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+
+    public VisitBuffer(VisitRecorder visitRecorder, long flushIntervalMillis, long maxLossMillis, int maxKeys) {
+        this.visitRecorder = visitRecorder;
+        this.maxLossNanos = TimeUnit.MILLISECONDS.toNanos(maxLossMillis);
+        this.maxKeys = maxKeys;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "visit-buffer-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordVisit(String code) {
+        add(code, visitRecorder.currentBucket(), 1);
+    }
+
+    public void add(String code, String bucket, long count) {
+        counters.merge(new VisitKey(code, bucket), count, Long::sum);
+        oldestPendingAt.compareAndSet(0L, System.nanoTime());
+
+        if (counters.size() >= maxKeys) {
+            scheduleFlush();
+        }
+    }
+
+    // En Lambda el temporizador no corre mientras el contenedor esta congelado, asi que el
+    // handler llama a esto al final de cada invocacion para respetar la ventana de perdida.
+    public boolean flushIfStale() {
+        if (isStale()) {
+            flush();
+            return true;
+        }
+        return false;
+    }
+
+    // En los servidores el temporizador si corre: si se atraso, el request solo le pide un flush
+    // al hilo del flusher en vez de escribir en DynamoDB y bloquear a los demas requests
+    public void scheduleFlushIfStale() {
+        if (isStale()) {
+            scheduleFlush();
+        }
+    }
+
+    private boolean isStale() {
+        long pendingSince = oldestPendingAt.get();
+        return pendingSince != 0L && System.nanoTime() - pendingSince >= maxLossNanos;
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    // Cada clave se saca del mapa antes de escribirla y merge() suma de forma atomica, asi que una
+    // visita que llega durante el flush queda en una entrada nueva y se escribe en el siguiente.
+    // Un fallo no detiene el flush: la cuenta vuelve al buffer y se sigue con las demas claves;
+    // el primer error se relanza al final.
+    public synchronized int flush() {
+        oldestPendingAt.set(0L);
+        int written = 0;
+        RuntimeException failure = null;
+
+        for (VisitKey key : counters.keySet()) {
+            Long count = counters.remove(key);
+            if (count == null) {
+                continue;
+            }
+
+            try {
+                visitRecorder.record(key.code(), key.bucket(), count);
+                written++;
+            } catch (RuntimeException e) {
+                // Se reintenta en el siguiente flush
+                add(key.code(), key.bucket(), count);
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return written;
+    }
+
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            Log.error("Error flushing visit buffer", e);
+        }
+    }
+
+    private record VisitKey(String code, String bucket) {
+    }
+}
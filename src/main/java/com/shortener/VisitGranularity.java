@@ -0,0 +1,70 @@
+package com.shortener;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Cubetas de tiempo de las visitas. Cada clave es prefijo de la clave de la granularidad mas
+// fina ("2026-10-16T14:05" -> "2026-10-16T14" -> "2026-10-16" -> "2026-10"), asi que las
+// cubetas gruesas se derivan de la mas fina sin volver a leer la hora.
+public enum VisitGranularity {
+
+    MINUTE("visitsByMinute", "MINUTE#", "yyyy-MM-dd'T'HH:mm", 16),
+    HOUR("visitsByHour", "HOUR#", "yyyy-MM-dd'T'HH", 13),
+    // El dia no lleva prefijo para conservar el formato de visitsByDate y de la serie de tiempo
+    DAY("visitsByDate", "", "yyyy-MM-dd", 10),
+    MONTH("visitsByMonth", "MONTH#", "yyyy-MM", 7);
+
+    private final String attributeName;
+    private final String sortKeyPrefix;
+    private final DateTimeFormatter formatter;
+    private final int keyLength;
+
+    VisitGranularity(String attributeName, String sortKeyPrefix, String pattern, int keyLength) {
+        this.attributeName = attributeName;
+        this.sortKeyPrefix = sortKeyPrefix;
+        this.formatter = DateTimeFormatter.ofPattern(pattern);
+        this.keyLength = keyLength;
+    }
+
+    public String attributeName() {
+        return attributeName;
+    }
+
+    public String sortKeyPrefix() {
+        return sortKeyPrefix;
+    }
+
+    public String format(ZonedDateTime time) {
+        return time.format(formatter);
+    }
+
+    // bucket debe ser de esta granularidad o de una mas fina
+    public String rollUp(String bucket) {
+        return bucket.substring(0, keyLength);
+    }
+
+    // Clave de orden en la tabla de series de tiempo. Los prefijos en mayuscula ordenan despues
+    // de los digitos, asi que un rango de dias nunca incluye cubetas de otra granularidad.
+    public String sortKey(String bucket) {
+        return sortKeyPrefix + rollUp(bucket);
+    }
+
+    // Lista separada por comas ("minute,hour,day"), ordenada de la mas fina a la mas gruesa
+    public static List<VisitGranularity> parse(String value) {
+        List<VisitGranularity> granularities = new ArrayList<>();
+        if (value != null) {
+            for (String name : value.split(",")) {
+                if (!name.isBlank()) {
+                    granularities.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                }
+            }
+        }
+        if (granularities.isEmpty()) {
+            granularities.add(DAY);
+        }
+        return granularities.stream().distinct().sorted().toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Histograma de visitas por dia en binario: varint(numero de dias), y por cada dia en orden
+// ascendente varint(epochDay - epochDay anterior) seguido de varint(visitas).
+// Un mes de datos ocupa menos de 100 bytes, frente a varios cientos del mapa "yyyy-MM-dd" -> N.
+public final class VisitHistogramCodec {
+
+    public interface DayCountConsumer {
+        void accept(long epochDay, long count);
+    }
+
+    private VisitHistogramCodec() {
+    }
+
+    public static byte[] encode(SortedMap<Long, Long> visitsByEpochDay) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 + visitsByEpochDay.size() * 3);
+        writeVarint(out, visitsByEpochDay.size());
+
+        long previousDay = 0;
+        for (Map.Entry<Long, Long> entry : visitsByEpochDay.entrySet()) {
+            long day = entry.getKey();
+            writeVarint(out, day - previousDay);
+            writeVarint(out, entry.getValue());
+            previousDay = day;
+        }
+
+        return out.toByteArray();
+    }
+
+    public static void forEach(byte[] encoded, DayCountConsumer consumer) {
+        int[] position = {0};
+        long entries = readVarint(encoded, position);
+
+        long day = 0;
+        for (long i = 0; i < entries; i++) {
+            day += readVarint(encoded, position);
+            consumer.accept(day, readVarint(encoded, position));
+        }
+    }
+
+    public static TreeMap<Long, Long> decode(byte[] encoded) {
+        TreeMap<Long, Long> visitsByEpochDay = new TreeMap<>();
+        forEach(encoded, visitsByEpochDay::put);
+        return visitsByEpochDay;
+    }
+
+    // Convierte el formato actual (visitsByDate con claves yyyy-MM-dd) a dias epoch
+    public static TreeMap<Long, Long> fromVisitsByDate(Map<String, AttributeValue> visitsByDate) {
+        TreeMap<Long, Long> visitsByEpochDay = new TreeMap<>();
+        visitsByDate.forEach((day, visits) ->
+                visitsByEpochDay.merge(LocalDate.parse(day).toEpochDay(), Long.parseLong(visits.n()), Long::sum));
+        return visitsByEpochDay;
+    }
+
+    public static TreeMap<String, Long> toVisitsByDate(byte[] encoded) {
+        TreeMap<String, Long> visitsByDate = new TreeMap<>();
+        forEach(encoded, (epochDay, count) -> visitsByDate.put(LocalDate.ofEpochDay(epochDay).toString(), count));
+        return visitsByDate;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value in visit histogram: " + value);
+        }
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] encoded, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = encoded[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in visit histogram");
+    }
+}
@@ -0,0 +1,154 @@
+package com.shortener;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Pasa los dias cerrados de visitsByDate al atributo binario visitsHistogram. El dia actual
+// se queda en el mapa para que los incrementos sigan siendo un UpdateItem atomico.
+// La compactacion (un GetItem y a veces un UpdateItem) no corre en el hilo del request: schedule()
+// la encola en un hilo propio, solo para una fraccion sampleRate de las escrituras y como mucho una
+// vez por codigo y por dia en cada contenedor. Si la cola esta llena se descarta y se vuelve a
+// intentar en otra escritura.
+public class VisitHistogramCompactor {
+
+    // Limita el tamano de las expresiones (maximo 4 KB en DynamoDB)
+    private static final int MAX_DAYS_PER_UPDATE = 50;
+    private static final int MAX_QUEUED = 1000;
+    private static final long ONE_DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final double sampleRate;
+    private final TtlCache<String, String> compactedToday;
+    private final ThreadPoolExecutor executor;
+
+    public VisitHistogramCompactor(DynamoDbClient dynamoDbClient, String tableName,
+                                   int maxTrackedCodes, double sampleRate) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.sampleRate = sampleRate;
+        this.compactedToday = new TtlCache<>(maxTrackedCodes, ONE_DAY_MILLIS);
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED), runnable -> {
+                    Thread thread = new Thread(runnable, "visit-histogram-compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public void schedule(String counterKey, String today) {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        if (today.equals(compactedToday.get(counterKey))) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> compactQuietly(counterKey, today));
+            compactedToday.put(counterKey, today);
+        } catch (RejectedExecutionException e) {
+            Log.debug(() -> "Histogram compaction queue full, skipping " + counterKey);
+        }
+    }
+
+    // La compactacion es opcional: las que sigan en cola al cerrar se descartan
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void compactQuietly(String counterKey, String today) {
+        try {
+            compact(counterKey, today);
+        } catch (RuntimeException e) {
+            Log.warn("Error compacting visit histogram for " + counterKey, e);
+        }
+    }
+
+    public int compact(String counterKey, String today) {
+        Map<String, AttributeValue> key = Map.of("code", AttributeValue.builder().s(counterKey).build());
+
+        GetItemResponse current = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key)
+                .projectionExpression("visitsByDate, visitsHistogram")
+                .build());
+
+        if (current.item() == null || !current.item().containsKey("visitsByDate")) {
+            return 0;
+        }
+
+        Map<String, AttributeValue> closedDays = new TreeMap<>(current.item().get("visitsByDate").m());
+        closedDays.remove(today);
+        if (closedDays.isEmpty()) {
+            return 0;
+        }
+
+        List<String> days = new ArrayList<>(closedDays.keySet());
+        if (days.size() > MAX_DAYS_PER_UPDATE) {
+            days = days.subList(0, MAX_DAYS_PER_UPDATE);
+        }
+
+        AttributeValue oldHistogram = current.item().get("visitsHistogram");
+        TreeMap<Long, Long> histogram = oldHistogram != null ?
+                VisitHistogramCodec.decode(oldHistogram.b().asByteArrayUnsafe()) : new TreeMap<>();
+
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        StringBuilder remove = new StringBuilder();
+        StringBuilder condition = new StringBuilder(oldHistogram != null ?
+                "visitsHistogram = :oldHistogram" : "attribute_not_exists(visitsHistogram)");
+        if (oldHistogram != null) {
+            values.put(":oldHistogram", oldHistogram);
+        }
+
+        for (int i = 0; i < days.size(); i++) {
+            String day = days.get(i);
+            AttributeValue visits = closedDays.get(day);
+            histogram.merge(LocalDate.parse(day).toEpochDay(), Long.parseLong(visits.n()), Long::sum);
+
+            // La condicion exige que cada dia siga valiendo lo que se leyo: un incremento tardio
+            // (por ejemplo un flush del buffer justo despues de medianoche) hace fallar la compactacion
+            names.put("#d" + i, day);
+            values.put(":v" + i, visits);
+            remove.append(i == 0 ? "" : ", ").append("visitsByDate.#d").append(i);
+            condition.append(" AND visitsByDate.#d").append(i).append(" = :v").append(i);
+        }
+
+        values.put(":histogram", AttributeValue.builder()
+                .b(SdkBytes.fromByteArray(VisitHistogramCodec.encode(histogram)))
+                .build());
+
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(key)
+                    .updateExpression("SET visitsHistogram = :histogram REMOVE " + remove)
+                    .conditionExpression(condition.toString())
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .build());
+            return days.size();
+        } catch (ConditionalCheckFailedException e) {
+            // Otro contenedor compacto o incremento en paralelo; se reintenta en la proxima pasada
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.shortener;
+
+// Registro de visitas. bucket es la cubeta de la granularidad mas fina (currentBucket()); cada
+// implementacion deriva de ella las mas gruesas. VisitBuffer agrupa sobre record().
+public interface VisitRecorder {
+
+    String currentBucket();
+
+    void record(String code, String bucket, long count);
+
+    default void recordVisit(String code) {
+        record(code, currentBucket(), 1);
+    }
+
+    default void close() {
+    }
+}
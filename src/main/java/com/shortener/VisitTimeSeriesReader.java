@@ -0,0 +1,78 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class VisitTimeSeriesReader {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final int shardCount;
+
+    public VisitTimeSeriesReader(DynamoDbClient dynamoDbClient, String tableName, int shardCount) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.shardCount = shardCount;
+    }
+
+    // Visitas por dia entre fromDay y toDay (inclusive, yyyy-MM-dd), sumando los shards del codigo
+    public Map<String, Long> read(String code, String fromDay, String toDay) {
+        return read(code, VisitGranularity.DAY, fromDay, toDay);
+    }
+
+    // Cubetas de una granularidad entre from y to (inclusive, en el formato de esa granularidad,
+    // p. ej. "2026-10-16T13" y "2026-10-16T14" para horas). Las claves del resultado van sin prefijo.
+    public Map<String, Long> read(String code, VisitGranularity granularity, String from, String to) {
+        Map<String, Long> visits = new TreeMap<>();
+
+        queryInto(code, granularity, from, to, visits);
+        if (shardCount > 1) {
+            for (int shard = 0; shard < shardCount; shard++) {
+                queryInto(DynamoDbVisitRecorder.shardKey(code, shard), granularity, from, to, visits);
+            }
+        }
+
+        return visits;
+    }
+
+    private void queryInto(String partition, VisitGranularity granularity, String from, String to,
+                           Map<String, Long> visits) {
+        int prefixLength = granularity.sortKeyPrefix().length();
+        Map<String, AttributeValue> startKey = null;
+
+        do {
+            QueryRequest.Builder request = QueryRequest.builder()
+                    .tableName(tableName)
+                    .keyConditionExpression("code = :code AND #date BETWEEN :from AND :to")
+                    .projectionExpression("#date, visits, migratedVisits")
+                    .expressionAttributeNames(Map.of("#date", "date"))
+                    .expressionAttributeValues(Map.of(
+                            ":code", AttributeValue.builder().s(partition).build(),
+                            ":from", AttributeValue.builder().s(granularity.sortKey(from)).build(),
+                            ":to", AttributeValue.builder().s(granularity.sortKey(to)).build()
+                    ));
+            if (startKey != null) {
+                request.exclusiveStartKey(startKey);
+            }
+
+            QueryResponse response = dynamoDbClient.query(request.build());
+            for (Map<String, AttributeValue> item : response.items()) {
+                visits.merge(item.get("date").s().substring(prefixLength),
+                        count(item, "visits") + count(item, "migratedVisits"), Long::sum);
+            }
+
+            startKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+    }
+
+    // Un dia copiado de visitsByDate sin visitas nuevas solo tiene migratedVisits, y al reves
+    private static long count(Map<String, AttributeValue> item, String attribute) {
+        AttributeValue value = item.get(attribute);
+        return value == null || value.n() == null ? 0 : Long.parseLong(value.n());
+    }
+}
@@ -0,0 +1,67 @@
+package com.shortener;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.Map;
+
+// Tabla de series de tiempo de visitas: particion "code" (o "code#n" si el codigo esta
+// en modo shard), clave de orden "date" y un contador "visits" por item. Los dias usan
+// "yyyy-MM-dd" y el resto de granularidades llevan prefijo (ver VisitGranularity.sortKey).
+// Los dias copiados del visitsByDate heredado van en migratedVisits, aparte del contador de las
+// escrituras nuevas: la copia es un SET y se puede repetir sin duplicar visitas. El lector suma
+// los dos atributos.
+public class VisitTimeSeriesWriter {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    public VisitTimeSeriesWriter(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    public void add(String counterKey, VisitGranularity granularity, String bucket, long count) {
+        dynamoDbClient.updateItem(buildAddRequest(counterKey, granularity, bucket, count));
+    }
+
+    public void migrate(String counterKey, String day, long count) {
+        try {
+            dynamoDbClient.updateItem(buildMigrateRequest(counterKey, day, count));
+        } catch (ConditionalCheckFailedException e) {
+            // Ese dia ya se copio con un conteo igual o mayor
+        }
+    }
+
+    // La condicion evita que una copia atrasada pise la de un mapa que ya tenia mas visitas
+    UpdateItemRequest buildMigrateRequest(String counterKey, String day, long count) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(
+                        "code", AttributeValue.builder().s(counterKey).build(),
+                        "date", AttributeValue.builder().s(VisitGranularity.DAY.sortKey(day)).build()
+                ))
+                .updateExpression("SET migratedVisits = :count")
+                .conditionExpression("attribute_not_exists(migratedVisits) OR migratedVisits <= :count")
+                .expressionAttributeValues(Map.of(
+                        ":count", AttributeValue.builder().n(Long.toString(count)).build()
+                ))
+                .build();
+    }
+
+    UpdateItemRequest buildAddRequest(String counterKey, VisitGranularity granularity, String bucket, long count) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(
+                        "code", AttributeValue.builder().s(counterKey).build(),
+                        "date", AttributeValue.builder().s(granularity.sortKey(bucket)).build()
+                ))
+                .updateExpression("ADD visits :inc")
+                .expressionAttributeValues(Map.of(
+                        ":inc", AttributeValue.builder().n(Long.toString(count)).build()
+                ))
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.shortener;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ApiGatewayEventScannerTest {
+
+    @Test
+    void readsMethodAndCode() {
+        ApiGatewayEventScanner.Fields fields = scan("{\"version\":\"2.0\",\"rawPath\":\"/abc\","
+                + "\"requestContext\":{\"requestId\":\"r1\",\"http\":{\"method\":\"GET\",\"path\":\"/abc\"}},"
+                + "\"pathParameters\":{\"code\":\"abc\"},\"isBase64Encoded\":false}");
+
+        assertEquals("GET", fields.method());
+        assertEquals("abc", fields.code());
+    }
+
+    @Test
+    void unescapesCode() {
+        ApiGatewayEventScanner.Fields fields = scan("{\"requestContext\":{\"http\":{\"method\":\"GET\"}},"
+                + "\"pathParameters\":{\"code\":\"a\\\"b\\\\c\\/d\\u00e9\\u0041\\n\"}}");
+
+        assertEquals("a\"b\\c/d\u00e9A\n", fields.code());
+    }
+
+    @Test
+    void skipsEscapedQuotesInOtherStrings() {
+        ApiGatewayEventScanner.Fields fields = scan("{\"body\":\"{\\\"pathParameters\\\":{\\\"code\\\":\\\"fake\\\"}}\","
+                + "\"headers\":{\"x\":\"\\\\\"},"
+                + "\"requestContext\":{\"http\":{\"method\":\"HEAD\"}},\"pathParameters\":{\"code\":\"real\"}}");
+
+        assertEquals("HEAD", fields.method());
+        assertEquals("real", fields.code());
+    }
+
+    @Test
+    void skipsNestedObjectsAndArrays() {
+        ApiGatewayEventScanner.Fields fields = scan("{\"cookies\":[\"a=1\",\"b=[2]\"],"
+                + "\"headers\":{\"accept\":\"*/*\",\"nested\":{\"deep\":[{\"method\":\"POST\"},[1,2,{}]],\"n\":null}},"
+                + "\"requestContext\":{\"authorizer\":{\"http\":{\"method\":\"PUT\"}},\"timeEpoch\":1700000000000,"
+                + "\"http\":{\"path\":\"/x\",\"sourceIp\":[\"1.2.3.4\"],\"method\":\"GET\"}},"
+                + "\"stageVariables\":{\"code\":\"stage\"},\"pathParameters\":{\"other\":{\"code\":\"inner\"},\"code\":\"x\"}}");
+
+        assertEquals("GET", fields.method());
+        assertEquals("x", fields.code());
+    }
+
+    @Test
+    void pathParametersMissingOrNull() {
+        ApiGatewayEventScanner.Fields missing = scan("{\"requestContext\":{\"http\":{\"method\":\"GET\"}},\"rawPath\":\"/\"}");
+        ApiGatewayEventScanner.Fields nullParameters = scan("{\"requestContext\":{\"http\":{\"method\":\"GET\"}},"
+                + "\"pathParameters\":null,\"isBase64Encoded\":false}");
+        ApiGatewayEventScanner.Fields nullCode = scan("{\"pathParameters\":{\"code\":null},"
+                + "\"requestContext\":{\"http\":{\"method\":\"GET\"}}}");
+        ApiGatewayEventScanner.Fields empty = scan("{\"pathParameters\":{},\"requestContext\":{\"http\":{\"method\":\"GET\"}}}");
+
+        assertEquals("GET", missing.method());
+        assertNull(missing.code());
+        assertEquals("GET", nullParameters.method());
+        assertNull(nullParameters.code());
+        assertNull(nullCode.code());
+        assertNull(empty.code());
+        assertNull(scan("{}").method());
+    }
+
+    @Test
+    void keysInAnyOrder() {
+        ApiGatewayEventScanner.Fields fields = scan("{ \"pathParameters\" : { \"code\" : \"abc\" } ,\n"
+                + "  \"requestContext\" : { \"http\" : { \"path\" : \"/abc\" , \"method\" : \"OPTIONS\" } , \"requestId\" : \"r\" } ,\n"
+                + "  \"version\" : \"2.0\" }");
+
+        assertEquals("OPTIONS", fields.method());
+        assertEquals("abc", fields.code());
+    }
+
+    @Test
+    void rejectsTruncatedDocuments() {
+        String event = "{\"headers\":{\"a\":\"b\"},\"requestContext\":{\"http\":{\"method\":\"GET\"}},"
+                + "\"pathParameters\":{\"code\":\"abc\"}}";
+        // Cualquier corte antes de cerrar el codigo deja el documento sin terminar
+        int codeEnd = event.indexOf("abc\"") + 4;
+        for (int length = 0; length < codeEnd; length++) {
+            String truncated = event.substring(0, length);
+            assertThrows(IllegalArgumentException.class, () -> scan(truncated), truncated);
+        }
+        assertThrows(IllegalArgumentException.class, () -> scan("{\"requestContext\":{\"http\":{\"method\":\"GET\"}}"));
+        assertThrows(IllegalArgumentException.class, () -> scan("{\"code\":\"abc\\"));
+    }
+
+    @Test
+    void stopsOnceBothFieldsAreFound() {
+        ApiGatewayEventScanner.Fields fields = scan("{\"requestContext\":{\"http\":{\"method\":\"GET\"}},"
+                + "\"pathParameters\":{\"code\":\"abc\"},\"body\":\"unterminated");
+
+        assertEquals("GET", fields.method());
+        assertEquals("abc", fields.code());
+    }
+
+    private static ApiGatewayEventScanner.Fields scan(String json) {
+        return ApiGatewayEventScanner.scan(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
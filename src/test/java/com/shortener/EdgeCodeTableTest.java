@@ -0,0 +1,155 @@
+package com.shortener;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EdgeCodeTableTest {
+
+    // Con 2 entradas la tabla tiene 4 slots: la colision de slot son los 2 bits bajos del hash
+    private static final int SMALL_TABLE_MASK = EdgeCodeTableWriter.slotCount(2) - 1;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripWithPolicies() throws IOException {
+        Map<String, RedirectTarget> targets = new LinkedHashMap<>();
+        targets.put("default", new RedirectTarget("https://example.com/default"));
+        targets.put("permanent", new RedirectTarget("https://example.com/p", new RedirectPolicy(true, 0, false)));
+        targets.put("cached", new RedirectTarget("https://example.com/c", new RedirectPolicy(false, 3600, false)));
+        targets.put("cdn", new RedirectTarget("https://example.com/cdn", new RedirectPolicy(true, 31_536_000, true)));
+        targets.put("shared", new RedirectTarget("https://example.com/s", new RedirectPolicy(false, 0, true)));
+        targets.put("caf\u00e9", new RedirectTarget("https://example.com/\u00f1and\u00fa?q=\u2713"));
+        targets.put("empty-url", new RedirectTarget(""));
+        for (int i = 0; i < 1000; i++) {
+            targets.put("c" + i, new RedirectTarget("https://example.com/" + i,
+                    i % 3 == 0 ? RedirectPolicy.DEFAULT : new RedirectPolicy(i % 2 == 0, i, i % 5 == 0)));
+        }
+
+        Path path = directory.resolve("codes.edge");
+        try (EdgeCodeTableWriter writer = new EdgeCodeTableWriter(path, targets.size())) {
+            for (Map.Entry<String, RedirectTarget> entry : targets.entrySet()) {
+                writer.add(entry.getKey(), entry.getValue());
+            }
+            writer.finish();
+        }
+
+        EdgeCodeTable table = EdgeCodeTable.open(path);
+        assertEquals(targets.size(), table.size());
+        targets.forEach((code, target) -> assertEquals(target, table.find(code), code));
+        assertFalse(Files.exists(directory.resolve("codes.edge.tmp")));
+    }
+
+    @Test
+    void missingCodes() throws IOException {
+        Path path = directory.resolve("codes.edge");
+        try (EdgeCodeTableWriter writer = new EdgeCodeTableWriter(path, 2)) {
+            writer.add("abc", new RedirectTarget("https://example.com/abc"));
+            writer.finish();
+        }
+
+        EdgeCodeTable table = EdgeCodeTable.open(path);
+        assertNull(table.find("abd"));
+        assertNull(table.find("ab"));
+        assertNull(table.find("abcd"));
+        assertNull(table.find(""));
+        assertNotNull(table.find("abc"));
+    }
+
+    @Test
+    void collidingFingerprintsResolveByCode() throws IOException {
+        String[] pair = collidingPair();
+        RedirectTarget first = new RedirectTarget("https://example.com/first");
+        RedirectTarget second = new RedirectTarget("https://example.com/second", new RedirectPolicy(true, 60, true));
+
+        Path both = directory.resolve("both.edge");
+        try (EdgeCodeTableWriter writer = new EdgeCodeTableWriter(both, 2)) {
+            writer.add(pair[0], first);
+            writer.add(pair[1], second);
+            writer.finish();
+        }
+        EdgeCodeTable table = EdgeCodeTable.open(both);
+        assertEquals(first, table.find(pair[0]));
+        assertEquals(second, table.find(pair[1]));
+
+        // Mismo slot y mismo fingerprint, pero el codigo no esta: no debe devolver el del otro
+        Path one = directory.resolve("one.edge");
+        try (EdgeCodeTableWriter writer = new EdgeCodeTableWriter(one, 2)) {
+            writer.add(pair[0], first);
+            writer.finish();
+        }
+        EdgeCodeTable single = EdgeCodeTable.open(one);
+        assertEquals(first, single.find(pair[0]));
+        assertNull(single.find(pair[1]));
+    }
+
+    @Test
+    void fromSnapshotKeepsPolicies() throws IOException {
+        Path snapshot = directory.resolve("codes.tsv");
+        try (Writer writer = Files.newBufferedWriter(snapshot, StandardCharsets.UTF_8)) {
+            CodeSnapshot.write(writer, "plain", new RedirectTarget("https://example.com/plain"));
+            CodeSnapshot.write(writer, "moved", new RedirectTarget("https://example.com/moved", new RedirectPolicy(true, 86400, true)));
+            writer.write("deleted\n");
+        }
+
+        Path path = directory.resolve("codes.edge");
+        assertEquals(2, EdgeCodeTableWriter.fromSnapshot(snapshot, path));
+
+        EdgeCodeTable table = EdgeCodeTable.open(path);
+        assertEquals(new RedirectTarget("https://example.com/plain"), table.find("plain"));
+        assertEquals(new RedirectTarget("https://example.com/moved", new RedirectPolicy(true, 86400, true)), table.find("moved"));
+        assertNull(table.find("deleted"));
+    }
+
+    @Test
+    void rejectsEntriesOverCapacity() throws IOException {
+        Path path = directory.resolve("codes.edge");
+        int capacity = (int) (EdgeCodeTableWriter.slotCount(2) * 0.75);
+        try (EdgeCodeTableWriter writer = new EdgeCodeTableWriter(path, 2)) {
+            for (int i = 0; i < capacity; i++) {
+                writer.add("c" + i, new RedirectTarget("https://example.com/" + i));
+            }
+            assertThrows(IllegalStateException.class, () -> writer.add("extra", new RedirectTarget("https://example.com/")));
+        }
+        // Sin finish() no queda ni el archivo ni el temporal
+        assertFalse(Files.exists(path));
+        assertFalse(Files.exists(directory.resolve("codes.edge.tmp")));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path path = directory.resolve("codes.tsv");
+        Files.writeString(path, "abc\thttps://example.com/abc\n");
+
+        assertThrows(IOException.class, () -> EdgeCodeTable.open(path));
+    }
+
+    // Dos codigos distintos con el mismo fingerprint que caen en el mismo slot de SMALL_TABLE_MASK
+    private static String[] collidingPair() {
+        Map<Long, String> seen = new HashMap<>();
+        for (int i = 0; ; i++) {
+            String code = "k" + i;
+            long hash = BloomFilter.hash(code);
+            long key = (long) EdgeCodeTable.fingerprint(hash) << 32 | ((int) hash & SMALL_TABLE_MASK);
+            String previous = seen.putIfAbsent(key, code);
+            if (previous != null) {
+                return new String[]{previous, code};
+            }
+        }
+    }
+}
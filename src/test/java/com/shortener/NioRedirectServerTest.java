@@ -0,0 +1,142 @@
+package com.shortener;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NioRedirectServerTest {
+
+    private final NioRedirectServer.HttpRequest request = new NioRedirectServer.HttpRequest();
+
+    @Test
+    void parsesRequestLine() {
+        byte[] buf = ascii("GET /abc%2Fx+y?utm=1 HTTP/1.1\r\nHost: example.com\r\n\r\n");
+
+        assertEquals(buf.length, request.parse(buf, 0, buf.length));
+        assertEquals("GET", request.method);
+        assertEquals("/abc/x+y", request.path);
+        assertFalse(request.head);
+        assertFalse(request.close);
+        assertFalse(request.malformed);
+    }
+
+    @Test
+    void requestSplitAcrossReads() {
+        byte[] buf = ascii("POST /abc HTTP/1.1\r\nHost: example.com\r\nContent-Length: 5\r\n\r\nhello");
+
+        // Mientras falten headers o cuerpo el request sigue incompleto
+        for (int limit = 0; limit < buf.length; limit++) {
+            assertEquals(-1, request.parse(buf, 0, limit), "limit " + limit);
+        }
+        assertEquals(buf.length, request.parse(buf, 0, buf.length));
+        assertEquals("POST", request.method);
+        assertEquals("/abc", request.path);
+    }
+
+    @Test
+    void pipelinedRequestsInOneBuffer() {
+        String first = "GET /a HTTP/1.1\r\nHost: x\r\n\r\n";
+        String second = "HEAD /b HTTP/1.1\r\nHost: x\r\nContent-Length: 3\r\n\r\nabc";
+        String third = "GET /c HTTP/1.1\r\nConnection: close\r\n\r\n";
+        byte[] buf = ascii(first + second + third + "GET /d HT");
+
+        int end = request.parse(buf, 0, buf.length);
+        assertEquals(first.length(), end);
+        assertEquals("/a", request.path);
+        assertFalse(request.close);
+
+        end = request.parse(buf, end, buf.length);
+        assertEquals(first.length() + second.length(), end);
+        assertEquals("HEAD", request.method);
+        assertEquals("/b", request.path);
+        assertTrue(request.head);
+
+        end = request.parse(buf, end, buf.length);
+        assertEquals(first.length() + second.length() + third.length(), end);
+        assertEquals("/c", request.path);
+        assertTrue(request.close);
+        assertFalse(request.head);
+
+        // El cuarto queda a medias hasta la siguiente lectura
+        assertEquals(-1, request.parse(buf, end, buf.length));
+    }
+
+    @Test
+    void headersOverLimitAreTooLarge() {
+        StringBuilder headers = new StringBuilder("GET /abc HTTP/1.1\r\n");
+        while (headers.length() < NioRedirectServer.MAX_REQUEST_SIZE) {
+            headers.append("X-Padding: 0123456789abcdef0123456789abcdef\r\n");
+        }
+        byte[] buf = ascii(headers.toString());
+
+        assertEquals(-1, request.parse(buf, 0, NioRedirectServer.MAX_REQUEST_SIZE - 1));
+        assertFalse(request.tooLarge);
+
+        assertEquals(buf.length, request.parse(buf, 0, buf.length));
+        assertTrue(request.tooLarge);
+        assertTrue(request.close);
+
+        // El parser se reutiliza entre requests: el siguiente no arrastra tooLarge
+        byte[] next = ascii("GET /abc HTTP/1.1\r\n\r\n");
+        assertEquals(next.length, request.parse(next, 0, next.length));
+        assertFalse(request.tooLarge);
+        assertFalse(request.close);
+    }
+
+    @Test
+    void chunkedBodiesAreRejected() {
+        String headers = "POST /abc HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n";
+        byte[] buf = ascii(headers + "5\r\nhello\r\n0\r\n\r\n");
+
+        // Se consumen solo los headers y la conexion se cierra despues del 501
+        assertEquals(headers.length(), request.parse(buf, 0, buf.length));
+        assertTrue(request.chunked);
+        assertTrue(request.close);
+        assertFalse(request.malformed);
+    }
+
+    @Test
+    void invalidContentLengthIsMalformed() {
+        byte[] negative = ascii("POST /abc HTTP/1.1\r\nContent-Length: -1\r\n\r\n");
+        byte[] oversized = ascii("POST /abc HTTP/1.1\r\nContent-Length: " + (NioRedirectServer.MAX_REQUEST_SIZE + 1) + "\r\n\r\n");
+        byte[] notANumber = ascii("POST /abc HTTP/1.1\r\nContent-Length: abc\r\n\r\n");
+        byte[] noVersion = ascii("GET /abc\r\n\r\n");
+
+        for (byte[] buf : new byte[][]{negative, oversized, notANumber, noVersion}) {
+            assertEquals(buf.length, request.parse(buf, 0, buf.length));
+            assertTrue(request.malformed);
+            assertTrue(request.close);
+        }
+    }
+
+    @Test
+    void http10KeepAlive() {
+        byte[] plain = ascii("GET /abc HTTP/1.0\r\n\r\n");
+        request.parse(plain, 0, plain.length);
+        assertTrue(request.close);
+
+        byte[] keepAlive = ascii("GET /abc HTTP/1.0\r\nConnection: Keep-Alive\r\n\r\n");
+        request.parse(keepAlive, 0, keepAlive.length);
+        assertFalse(request.close);
+        assertArrayEquals(ascii("Connection: keep-alive\r\n"), request.keepAliveHeader());
+
+        // HTTP/1.1 mantiene la conexion sin header y la cierra con Connection: close
+        byte[] http11 = ascii("GET /abc HTTP/1.1\r\n\r\n");
+        request.parse(http11, 0, http11.length);
+        assertFalse(request.close);
+        assertEquals(0, request.keepAliveHeader().length);
+
+        byte[] http11Close = ascii("GET /abc HTTP/1.1\r\nconnection: close\r\n\r\n");
+        request.parse(http11Close, 0, http11Close.length);
+        assertTrue(request.close);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
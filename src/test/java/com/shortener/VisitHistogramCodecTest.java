@@ -0,0 +1,100 @@
+package com.shortener;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VisitHistogramCodecTest {
+
+    @Test
+    void roundTripWithGapsAndLargeCounts() {
+        TreeMap<Long, Long> visits = new TreeMap<>();
+        long today = LocalDate.of(2026, 10, 16).toEpochDay();
+        visits.put(0L, 1L);
+        visits.put(today - 400, 0L);
+        visits.put(today - 30, 127L);
+        visits.put(today - 29, 128L);
+        visits.put(today, 5_000_000_000L);
+        visits.put(today + 1, Long.MAX_VALUE);
+        visits.put(today + 100_000, 300L);
+
+        assertEquals(visits, VisitHistogramCodec.decode(VisitHistogramCodec.encode(visits)));
+    }
+
+    @Test
+    void emptyHistogram() {
+        byte[] encoded = VisitHistogramCodec.encode(new TreeMap<>());
+
+        assertArrayEquals(new byte[]{0}, encoded);
+        assertTrue(VisitHistogramCodec.decode(encoded).isEmpty());
+    }
+
+    @Test
+    void encodesDeltasAsVarints() {
+        TreeMap<Long, Long> visits = new TreeMap<>();
+        visits.put(20000L, 3L);
+        visits.put(20002L, 300L);
+
+        // 2 dias; 20000 = 0xA0 0x9C 0x01; delta 2; 300 = 0xAC 0x02
+        byte[] expected = {2, (byte) 0xA0, (byte) 0x9C, 0x01, 3, 2, (byte) 0xAC, 0x02};
+        assertArrayEquals(expected, VisitHistogramCodec.encode(visits));
+    }
+
+    @Test
+    void forEachVisitsDaysInOrder() {
+        TreeMap<Long, Long> visits = new TreeMap<>();
+        visits.put(20010L, 1L);
+        visits.put(20000L, 2L);
+        visits.put(20005L, 3L);
+
+        List<Long> days = new ArrayList<>();
+        VisitHistogramCodec.forEach(VisitHistogramCodec.encode(visits), (day, count) -> days.add(day));
+        assertEquals(List.of(20000L, 20005L, 20010L), days);
+    }
+
+    @Test
+    void convertsFromAndToVisitsByDate() {
+        Map<String, AttributeValue> visitsByDate = Map.of(
+                "2026-02-28", number(4),
+                "2026-03-01", number(9_876_543_210L),
+                "2024-02-29", number(1));
+
+        TreeMap<Long, Long> visits = VisitHistogramCodec.fromVisitsByDate(visitsByDate);
+        assertEquals(Long.valueOf(9_876_543_210L), visits.get(LocalDate.of(2026, 3, 1).toEpochDay()));
+
+        TreeMap<String, Long> expected = new TreeMap<>(Map.of("2024-02-29", 1L, "2026-02-28", 4L, "2026-03-01", 9_876_543_210L));
+        assertEquals(expected, VisitHistogramCodec.toVisitsByDate(VisitHistogramCodec.encode(visits)));
+    }
+
+    @Test
+    void rejectsNegativeCounts() {
+        TreeMap<Long, Long> visits = new TreeMap<>(Map.of(20000L, -1L));
+
+        assertThrows(IllegalArgumentException.class, () -> VisitHistogramCodec.encode(visits));
+    }
+
+    @Test
+    void rejectsMalformedVarints() {
+        byte[] encoded = new byte[12];
+        encoded[0] = 1;
+        for (int i = 1; i < encoded.length; i++) {
+            encoded[i] = (byte) 0x80;
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> VisitHistogramCodec.decode(encoded));
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.builder().n(Long.toString(value)).build();
+    }
+}
@@ -15,6 +15,26 @@ variable "dynamo_table" {
   default = "shortener-dynamo-table"
 }
 
+# true = ejecutable nativo de GraalVM (./gradlew buildNativeZip) en el runtime provided.al2
+variable "native_runtime" {
+  default = false
+}
+
+# Tabla de series de tiempo de visitas (PK "code", SK "date"). Vacio = visitsByDate en el item
+variable "visits_table" {
+  default = ""
+}
+
+# true = StreamRedirectHandler (evento leido sin Jackson); false = RedirectHandler con eventos POJO
+variable "stream_handler" {
+  default = true
+}
+
+# true = el zip incluye el archivo AppCDS (./gradlew buildZip -Pcds) y la JVM lo mapea al arrancar
+variable "cds_archive" {
+  default = false
+}
+
 # IAM Role para Lambda
 resource "aws_iam_role" "redirect_lambda_role" {
   name = "redirect-lambda-role"
@@ -50,31 +70,64 @@ resource "aws_iam_role_policy" "dynamodb_access" {
         "dynamodb:Query",
         "dynamodb:UpdateItem"
       ]
-      Resource = "arn:aws:dynamodb:us-east-1:*:table/${var.dynamo_table}"
+      Resource = compact([
+        "arn:aws:dynamodb:us-east-1:*:table/${var.dynamo_table}",
+        var.visits_table != "" ? "arn:aws:dynamodb:us-east-1:*:table/${var.visits_table}" : ""
+      ])
     }]
   })
 }
 
+locals {
+  lambda_zip = var.native_runtime ? "../build/distributions/redirect-handler-native.zip" : "../build/distributions/redirect-handler.zip"
+}
+
 # Lambda Function
 resource "aws_lambda_function" "redirect" {
   function_name = "redirect-lambda"
 
-  runtime = "java17"
-  handler = "com.shortener.RedirectHandler::handleRequest"
+  runtime = var.native_runtime ? "provided.al2" : "java17"
+  handler = var.native_runtime ? "bootstrap" : (var.stream_handler ? "com.shortener.StreamRedirectHandler::handleRequest" : "com.shortener.RedirectHandler::handleRequest")
 
   role = aws_iam_role.redirect_lambda_role.arn
 
-  filename         = "../build/distributions/redirect-handler.zip"
-  source_code_hash = filebase64sha256("../build/distributions/redirect-handler.zip")
+  filename         = local.lambda_zip
+  source_code_hash = filebase64sha256(local.lambda_zip)
 
   timeout = 30
-  memory_size = 512
+  memory_size = var.native_runtime ? 256 : 512
 
-  environment {
-    variables = {
-      TABLE_NAME = var.dynamo_table
+  # SnapStart solo aplica a versiones publicadas; API Gateway invoca el alias "live"
+  publish = true
+
+  # provided.al2 no admite SnapStart: el ejecutable nativo ya arranca en milisegundos
+  dynamic "snap_start" {
+    for_each = var.native_runtime ? [] : [1]
+    content {
+      apply_on = "PublishedVersions"
     }
   }
+
+  environment {
+    variables = merge({
+      TABLE_NAME             = var.dynamo_table
+      URL_CACHE_MAX_ENTRIES  = "10000"
+      URL_CACHE_TTL_SECONDS  = "60"
+      MISS_CACHE_MAX_ENTRIES = "10000"
+      MISS_CACHE_TTL_SECONDS = "30"
+      VISITS_TABLE_NAME      = var.visits_table
+      LOG_LEVEL              = "INFO"
+      LOG_SAMPLE_RATE        = "0.01"
+    }, var.cds_archive && !var.native_runtime ? {
+      JAVA_TOOL_OPTIONS = "-XX:SharedArchiveFile=/var/task/redirect-handler.jsa -Xshare:auto"
+    } : {})
+  }
+}
+
+resource "aws_lambda_alias" "live" {
+  name             = "live"
+  function_name    = aws_lambda_function.redirect.function_name
+  function_version = aws_lambda_function.redirect.version
 }
 
 # API Gateway
@@ -86,7 +139,7 @@ resource "aws_apigatewayv2_api" "redirect_api" {
 resource "aws_apigatewayv2_integration" "lambda_integration" {
   api_id             = aws_apigatewayv2_api.redirect_api.id
   integration_type   = "AWS_PROXY"
-  integration_uri    = aws_lambda_function.redirect.invoke_arn
+  integration_uri    = aws_lambda_alias.live.invoke_arn
   payload_format_version = "2.0"
 }
 
@@ -101,6 +154,7 @@ resource "aws_lambda_permission" "lambda_permission" {
   statement_id  = "AllowAPIGatewayInvoke"
   action        = "lambda:InvokeFunction"
   function_name = aws_lambda_function.redirect.function_name
+  qualifier     = aws_lambda_alias.live.name
   principal     = "apigateway.amazonaws.com"
   source_arn    = "${aws_apigatewayv2_api.redirect_api.execution_arn}/*/*"
 }